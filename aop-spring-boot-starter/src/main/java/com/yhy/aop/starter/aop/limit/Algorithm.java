@@ -0,0 +1,28 @@
+package com.yhy.aop.starter.aop.limit;
+
+/**
+ * 限流算法
+ * <p>
+ * Created on 2026-10-17 11:40
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public enum Algorithm {
+
+    /**
+     * 令牌桶
+     * <p>
+     * 秒级精度，令牌数保存在 hash 中，支持租约模式
+     */
+    TOKEN_BUCKET,
+
+    /**
+     * 通用信元速率算法（GCRA）
+     * <p>
+     * 微秒级精度，只保存一个整数键，支持亚秒级的时间窗口，并返回需等待的时间
+     */
+    GCRA,
+    ;
+}
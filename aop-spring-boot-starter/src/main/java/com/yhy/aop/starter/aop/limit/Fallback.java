@@ -0,0 +1,29 @@
+package com.yhy.aop.starter.aop.limit;
+
+/**
+ * redis 不可用时的降级策略
+ * <p>
+ * Created on 2026-10-17 13:24
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public enum Fallback {
+
+    /**
+     * 降级为进程内限流
+     */
+    LOCAL,
+
+    /**
+     * 直接放行
+     */
+    OPEN,
+
+    /**
+     * 直接拒绝
+     */
+    REJECT,
+    ;
+}
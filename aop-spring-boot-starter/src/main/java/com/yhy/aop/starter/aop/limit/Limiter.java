@@ -8,6 +8,8 @@ import java.time.temporal.ChronoUnit;
  * <p>
  * 令牌桶方案
  * <p>
+ * 可重复标注，多个限流器一次性原子校验，参考 {@link Limiters}
+ * <p>
  * Created on 2021-04-29 14:32
  *
  * @author 颜洪毅
@@ -18,6 +20,7 @@ import java.time.temporal.ChronoUnit;
 @Retention(RetentionPolicy.RUNTIME)
 @Documented
 @Inherited
+@Repeatable(Limiters.class)
 public @interface Limiter {
 
     /**
@@ -75,6 +78,100 @@ public @interface Limiter {
      */
     long quantity() default 1L;
 
+    /**
+     * 限流算法
+     * <p>
+     * {@link Algorithm#GCRA} 支持亚秒级的 {@link #period()}，如 100ms
+     * <p>
+     * 默认值：{@link Algorithm#TOKEN_BUCKET}
+     *
+     * @return 限流算法
+     */
+    Algorithm algorithm() default Algorithm.TOKEN_BUCKET;
+
+    /**
+     * 限流作用范围
+     * <p>
+     * {@link Scope#LOCAL} 时只在当前实例内限流，不访问 redis
+     * <p>
+     * 默认值：{@link Scope#DISTRIBUTED}
+     *
+     * @return 作用范围
+     */
+    Scope scope() default Scope.DISTRIBUTED;
+
+    /**
+     * redis 不可用时的降级策略
+     * <p>
+     * 默认值：{@link Fallback#LOCAL}，降级为进程内限流
+     *
+     * @return 降级策略
+     */
+    Fallback fallback() default Fallback.LOCAL;
+
+    /**
+     * 租约模式，每次从令牌桶预留的令牌数
+     * <p>
+     * 大于 {@link #quantity()} 时启用：一次 redis 调用预留一批令牌，由本地计数器分发，过期后未使用的令牌归还令牌桶
+     * <p>
+     * 全局限流变为近似限流，换取 redis 调用次数的成倍下降
+     * <p>
+     * 仅 {@link Algorithm#TOKEN_BUCKET} 支持，多个限流器同时标注时不生效
+     * <p>
+     * 默认值：0，不启用
+     *
+     * @return 每次预留的令牌数
+     */
+    long lease() default 0L;
+
+    /**
+     * 租约有效期
+     * <p>
+     * 时间量
+     * <p>
+     * 默认值：1
+     *
+     * @return 时间量
+     */
+    long leaseTime() default 1L;
+
+    /**
+     * 租约有效期
+     * <p>
+     * 时间单位
+     * <p>
+     * 默认值：s
+     *
+     * @return 时间单位
+     */
+    ChronoUnit leaseTimeUnit() default ChronoUnit.SECONDS;
+
+    /**
+     * 令牌不足时的最长等待时间
+     * <p>
+     * 大于 0 时启用：按令牌桶返回的补足时间精确等待后重试，同一 key 的等待者在本地公平排队，只有队首访问 redis
+     * <p>
+     * 多个限流器同时标注时取最大值
+     * <p>
+     * 返回 CompletableFuture 或 Mono 的方法不等待
+     * <p>
+     * 默认值：0，不等待，直接拒绝
+     *
+     * @return 时间量
+     */
+    long maxWait() default 0L;
+
+    /**
+     * 令牌不足时的最长等待时间
+     * <p>
+     * 时间单位
+     * <p>
+     * 默认值：ms
+     *
+     * @return 时间单位
+     */
+    ChronoUnit maxWaitUnit() default ChronoUnit.MILLIS;
+
     /**
      * 错误异常信息
      *
@@ -1,21 +1,43 @@
 package com.yhy.aop.starter.aop.limit;
 
-import com.yhy.jakit.util.PlaceholderUtils;
+import com.yhy.aop.starter.aop.metrics.AopMetrics;
+import com.yhy.jakit.util.PlaceholderTemplate;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * 分布式限流器切面
  * <p>
+ * 按 {@link Limiter#scope()} 选择 redis 分布式限流或进程内限流
+ * <p>
+ * 设置了 {@link Limiter#maxWait()} 时，令牌不足会通过 {@link LimiterQueue} 排队等待
+ * <p>
+ * 返回 {@link CompletableFuture} 或 Mono 的方法异步申请令牌，不阻塞调用线程，此时 {@link Limiter#maxWait()} 不生效
+ * <p>
+ * 令牌未能立即申请到时，原方法不在 redis 的 I/O 线程中执行：返回 {@link CompletionStage} 的方法在 {@link java.util.concurrent.ForkJoinPool#commonPool()} 中执行，
+ * 返回 Mono 的方法在 reactor 的 boundedElastic 调度器中执行，两者都不会传递请求上下文（RequestAttributes、SecurityContext 等）
+ * <p>
+ * 申请结果按 key 模板记录到 {@link AopMetrics}
+ * <p>
  * Created on 2021-04-29 14:55
  *
  * @author 颜洪毅
@@ -25,10 +47,17 @@ import java.time.Duration;
 @Slf4j
 @Aspect
 @Component
-@ConditionalOnBean(LimiterHelper.class)
 public class LimiterAspect {
+    private static final boolean REACTOR_PRESENT = ClassUtils.isPresent("reactor.core.publisher.Mono", LimiterAspect.class.getClassLoader());
+
     @Autowired(required = false)
     private LimiterHelper helper;
+    @Autowired
+    private LocalLimiter localLimiter;
+    @Autowired
+    private LimiterQueue queue;
+    @Autowired(required = false)
+    private AopMetrics metrics = AopMetrics.NONE;
 
     /**
      * 环绕增强
@@ -37,30 +66,159 @@ public class LimiterAspect {
      * @return 方法执行结果
      * @throws Throwable 可能出现的异常
      */
-    @Around("@annotation(com.yhy.aop.starter.aop.limit.Limiter)")
+    @Around("@annotation(com.yhy.aop.starter.aop.limit.Limiter) || @annotation(com.yhy.aop.starter.aop.limit.Limiters)")
     public Object around(ProceedingJoinPoint point) throws Throwable {
-        if (null != helper) {
-            MethodSignature signature = (MethodSignature) point.getSignature();
-            Method method = signature.getMethod();
-            Limiter limiter = method.getAnnotation(Limiter.class);
-
-            // 从方法参数中填充 key 占位符
-            // 支持占位符从参数自动填充
-            String key = PlaceholderUtils.resolve(limiter.key(), signature.getParameterNames(), point.getArgs());
-
-            long capacity = limiter.capacity();
-            if (capacity <= 0L) {
-                // 默认值
-                capacity = limiter.quota();
+        MethodSignature signature = (MethodSignature) point.getSignature();
+        Method method = signature.getMethod();
+        // 支持多个限流器，同时兼容 @Limiter 和 @Limiters
+        Limiter[] limiters = method.getAnnotationsByType(Limiter.class);
+
+        List<LimiterRule> rules = new ArrayList<>(limiters.length);
+        for (Limiter limiter : limiters) {
+            // 从方法参数中填充 key 占位符，模板按方法预编译
+            String key = PlaceholderTemplate.of(method, limiter.key(), signature.getParameterNames()).resolve(point.getArgs());
+            rules.add(LimiterRule.of(limiter, key));
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("限流器【{}】申请令牌中...", keys(rules));
+        }
+        String template = template(limiters);
+        Class<?> returnType = method.getReturnType();
+        if (CompletionStage.class.isAssignableFrom(returnType) && returnType.isAssignableFrom(CompletableFuture.class)) {
+            // 异步方法，申请令牌同样异步完成，不阻塞调用线程
+            // 只处理声明为 CompletionStage 或 CompletableFuture 的方法，返回的 CompletableFuture 才能赋值给原返回类型，Future 等其他类型仍同步申请
+            CompletableFuture<LimiterResult> permit = acquireAsync(rules, template);
+            Function<LimiterResult, CompletionStage<Object>> then = result -> {
+                if (!result.isGranted()) {
+                    throw rejected(rules, limiters, result);
+                }
+                return proceedAsync(point);
+            };
+            // 已完成时直接在当前线程执行，否则不在 redis 的 I/O 线程中执行原方法
+            return permit.isDone() ? permit.thenCompose(then) : permit.thenComposeAsync(then);
+        }
+        if (REACTOR_PRESENT && ReactiveLimiterSupport.isMono(returnType)) {
+            // 响应式方法，订阅时才申请令牌
+            return ReactiveLimiterSupport.limit(() -> acquireAsync(rules, template), result -> rejected(rules, limiters, result), () -> proceed(point));
+        }
+
+        long start = System.nanoTime();
+        int[] retries = {0};
+        LimiterResult result = queue.await(keys(rules), maxWait(rules), acquire(rules), () -> {
+            retries[0]++;
+            return acquire(rules);
+        });
+        metrics.limiter(template, result.isGranted(), System.nanoTime() - start, retries[0]);
+        if (!result.isGranted()) {
+            throw rejected(rules, limiters, result);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("限流器【{}】申请令牌成功", keys(rules));
+        }
+        return proceed(point);
+    }
+
+    private CompletableFuture<LimiterResult> acquireAsync(List<LimiterRule> rules, String template) {
+        long start = System.nanoTime();
+        return acquireAsync(rules).whenComplete((result, e) -> {
+            if (null != result) {
+                metrics.limiter(template, result.isGranted(), System.nanoTime() - start, 0);
             }
+        });
+    }
 
-            log.info("分布式限流器【{}】申请令牌中...", key);
-            if (!helper.acquire(key, limiter.quota(), Duration.of(limiter.period(), limiter.periodUnit()), limiter.quantity(), capacity)) {
-                log.error("分布式限流器【{}】申请令牌失败", key);
-                throw new RateLimiterException(limiter.message());
+    private CompletableFuture<LimiterResult> acquireAsync(List<LimiterRule> rules) {
+        // 进程内申请无需等待，只有分布式申请是异步的
+        List<LimiterRule> locals = rules.stream().filter(rule -> rule.scope() == Scope.LOCAL).collect(Collectors.toList());
+        List<LimiterRule> distributed = rules.stream().filter(rule -> rule.scope() != Scope.LOCAL).collect(Collectors.toList());
+        LimiterResult result = localLimiter.tryAcquireAll(locals);
+        if (!result.isGranted() || distributed.isEmpty()) {
+            return CompletableFuture.completedFuture(result);
+        }
+        // 未启用 redis 时视为 redis 不可用
+        CompletableFuture<LimiterResult> future = null != helper ? helper.tryAcquireAllAsync(distributed) : CompletableFuture.completedFuture(localLimiter.fallbackAll(distributed));
+        return future.thenApply(res -> {
+            if (!res.isGranted()) {
+                localLimiter.refundAll(locals);
             }
-            log.info("分布式限流器【{}】申请令牌成功", key);
+            return res;
+        });
+    }
+
+    private RateLimiterException rejected(List<LimiterRule> rules, Limiter[] limiters, LimiterResult result) {
+        Limiter rejected = limiters[indexOf(rules, result.getKey())];
+        log.error("限流器【{}】申请令牌失败，需等待【{}】", null == result.getKey() ? keys(rules) : result.getKey(), result.getRetryAfter());
+        return new RateLimiterException(rejected.message(), result.getRetryAfter());
+    }
+
+    @SuppressWarnings("unchecked")
+    private CompletionStage<Object> proceedAsync(ProceedingJoinPoint point) {
+        try {
+            Object stage = proceed(point);
+            return null == stage ? CompletableFuture.completedFuture(null) : (CompletionStage<Object>) stage;
+        } catch (Exception e) {
+            CompletableFuture<Object> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    private Object proceed(ProceedingJoinPoint point) throws Exception {
+        try {
+            return null == point.getArgs() || point.getArgs().length == 0 ? point.proceed() : point.proceed(point.getArgs());
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    private LimiterResult acquire(List<LimiterRule> rules) {
+        if (rules.size() == 1) {
+            return acquire(rules.get(0));
+        }
+        // 先申请进程内的，再一次性申请分布式的，分布式申请失败时归还进程内的令牌
+        List<LimiterRule> locals = rules.stream().filter(rule -> rule.scope() == Scope.LOCAL).collect(Collectors.toList());
+        List<LimiterRule> distributed = rules.stream().filter(rule -> rule.scope() != Scope.LOCAL).collect(Collectors.toList());
+        LimiterResult result = localLimiter.tryAcquireAll(locals);
+        if (!result.isGranted() || distributed.isEmpty()) {
+            return result;
+        }
+        // 未启用 redis 时视为 redis 不可用
+        result = null != helper ? helper.tryAcquireAll(distributed) : localLimiter.fallbackAll(distributed);
+        if (!result.isGranted()) {
+            localLimiter.refundAll(locals);
+        }
+        return result;
+    }
+
+    private LimiterResult acquire(LimiterRule rule) {
+        if (rule.scope() == Scope.LOCAL) {
+            return localLimiter.tryAcquire(rule);
         }
-        return null == point.getArgs() || point.getArgs().length == 0 ? point.proceed() : point.proceed(point.getArgs());
+        // 未启用 redis 时视为 redis 不可用
+        return null != helper ? helper.tryAcquire(rule) : localLimiter.fallback(rule);
+    }
+
+    private Duration maxWait(List<LimiterRule> rules) {
+        return rules.stream().map(LimiterRule::getMaxWait).filter(Objects::nonNull).max(Comparator.naturalOrder()).orElse(Duration.ZERO);
+    }
+
+    private int indexOf(List<LimiterRule> rules, String key) {
+        for (int i = 0; i < rules.size(); i++) {
+            if (rules.get(i).getKey().equals(key)) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private String template(Limiter[] limiters) {
+        return limiters.length == 1 ? limiters[0].key() : Arrays.stream(limiters).map(Limiter::key).collect(Collectors.joining(", "));
+    }
+
+    private String keys(List<LimiterRule> rules) {
+        return rules.stream().map(LimiterRule::getKey).collect(Collectors.joining(", "));
     }
 }
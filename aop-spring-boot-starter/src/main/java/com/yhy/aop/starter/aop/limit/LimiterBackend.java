@@ -0,0 +1,35 @@
+package com.yhy.aop.starter.aop.limit;
+
+import java.util.List;
+
+/**
+ * 限流器后端
+ * <p>
+ * 内置 {@link LimiterHelper}（redis 分布式限流）和 {@link LocalLimiter}（进程内限流）两种实现
+ * <p>
+ * Created on 2026-10-17 13:20
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public interface LimiterBackend {
+
+    /**
+     * 按规则申请令牌
+     *
+     * @param rule 限流规则
+     * @return 申请结果
+     */
+    LimiterResult tryAcquire(LimiterRule rule);
+
+    /**
+     * 按多个规则一次性申请令牌
+     * <p>
+     * 任一规则拒绝时，不扣减其他规则的令牌
+     *
+     * @param rules 限流规则
+     * @return 申请结果，失败时携带拒绝申请的令牌桶标识
+     */
+    LimiterResult tryAcquireAll(List<LimiterRule> rules);
+}
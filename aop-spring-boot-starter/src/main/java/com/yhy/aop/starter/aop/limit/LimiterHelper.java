@@ -1,38 +1,59 @@
 package com.yhy.aop.starter.aop.limit;
 
 import com.yhy.jakit.starter.helper.RedisHelper;
-import com.yhy.jakit.util.internal.Maps;
 import com.yhy.jakit.util.system.SystemClock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
-import org.springframework.core.io.ClassPathResource;
-import org.springframework.data.redis.core.HashOperations;
-import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Component;
-import org.springframework.util.CollectionUtils;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * 辅助类
  * <p>
+ * redis 分布式限流实现，redis 不可用时按 {@link LimiterRule#fallback()} 降级
+ * <p>
  * Created on 2021-04-29 14:59
  *
  * @author 颜洪毅
  * @version 1.0.0
  * @since 1.0.0
  */
+@Slf4j
 @Component
 @AutoConfigureAfter(RedisHelper.class)
 @ConditionalOnBean(RedisHelper.class)
-public class LimiterHelper {
+public class LimiterHelper implements LimiterBackend, DisposableBean {
+    private static final String SCRIPT_BUCKET = "rate_limiter_bucket";
+    private static final String SCRIPT_BUCKET_REFUND = "rate_limiter_bucket_refund";
+    private static final String SCRIPT_GCRA = "rate_limiter_gcra";
+    private static final String SCRIPT_MULTI = "rate_limiter_multi";
+
+    private final Map<String, LeaseSlot> leases = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService sweeper;
+
     @Autowired
     private RedisHelper redisHelper;
+    @Autowired
+    private LocalLimiter localLimiter;
+    @Autowired
+    private ObjectProvider<ReactiveLimiterHelper> reactiveHelper;
 
     /**
      * 申请一个分布式限流器令牌
@@ -45,79 +66,277 @@ public class LimiterHelper {
      * @return 令牌是否申请成功
      */
     public boolean acquire(String key, long quota, Duration period, long quantity, long capacity) {
+        return acquire(LimiterRule.builder().key(key).quota(quota).period(period).quantity(quantity).capacity(capacity).build());
+    }
+
+    /**
+     * 按规则申请一个分布式限流器令牌
+     * <p>
+     * 启用租约时优先从本地租约中扣减，租约耗尽后再向令牌桶预留一批
+     *
+     * @param rule 限流规则
+     * @return 令牌是否申请成功
+     */
+    public boolean acquire(LimiterRule rule) {
+        return tryAcquire(rule).isGranted();
+    }
+
+    /**
+     * 按规则申请一个分布式限流器令牌，并返回剩余令牌数及需等待的时间
+     *
+     * @param rule 限流规则
+     * @return 申请结果
+     */
+    @Override
+    public LimiterResult tryAcquire(LimiterRule rule) {
+        try {
+            return rule.leased() ? withLease(rule) : execute(scriptCall(rule));
+        } catch (Exception e) {
+            log.warn("分布式限流器【{}】不可用，按【{}】降级：{}", rule.getKey(), rule.fallback(), e.getMessage());
+            return localLimiter.fallback(rule);
+        }
+    }
+
+    /**
+     * 按多个规则原子申请分布式限流器令牌
+     * <p>
+     * 所有令牌桶在一次 lua 调用中先校验后扣减，任一拒绝时不扣减任何令牌，租约模式在此不生效
+     * <p>
+     * 集群模式下所有 key 需位于同一 slot，如使用 hash tag；key 相同的规则合并为一次申请，所需令牌数累加
+     *
+     * @param rules 限流规则
+     * @return 申请结果，失败时携带拒绝申请的令牌桶标识
+     */
+    @Override
+    public LimiterResult tryAcquireAll(List<LimiterRule> rules) {
+        rules = LimiterRule.merge(rules);
+        if (rules.isEmpty()) {
+            return LimiterResult.granted(0L);
+        }
+        if (rules.size() == 1) {
+            return tryAcquire(rules.get(0));
+        }
         try {
-            return withLuaScript(key, quota, period, quantity, capacity);
+            return execute(scriptCall(rules));
         } catch (Exception e) {
-            return withTemplate(key, quota, period, quantity, capacity);
+            log.warn("分布式限流器【{}】不可用，按各自的策略降级：{}", keys(rules), e.getMessage());
+            return localLimiter.fallbackAll(rules);
+        }
+    }
+
+    /**
+     * 异步申请一个分布式限流器令牌
+     * <p>
+     * 存在 {@link ReactiveLimiterHelper} 时基于响应式连接执行，不占用调用线程，否则在公共线程池中执行
+     *
+     * @param rule 限流规则
+     * @return 令牌是否申请成功
+     */
+    public CompletableFuture<Boolean> acquireAsync(LimiterRule rule) {
+        return tryAcquireAsync(rule).thenApply(LimiterResult::isGranted);
+    }
+
+    /**
+     * 异步申请一个分布式限流器令牌，并返回剩余令牌数及需等待的时间
+     *
+     * @param rule 限流规则
+     * @return 申请结果
+     */
+    public CompletableFuture<LimiterResult> tryAcquireAsync(LimiterRule rule) {
+        ReactiveLimiterHelper reactive = reactiveHelper.getIfAvailable();
+        return null != reactive ? reactive.tryAcquireFuture(rule) : CompletableFuture.supplyAsync(() -> tryAcquire(rule));
+    }
+
+    /**
+     * 按多个规则异步原子申请分布式限流器令牌
+     *
+     * @param rules 限流规则
+     * @return 申请结果，失败时携带拒绝申请的令牌桶标识
+     */
+    public CompletableFuture<LimiterResult> tryAcquireAllAsync(List<LimiterRule> rules) {
+        ReactiveLimiterHelper reactive = reactiveHelper.getIfAvailable();
+        return null != reactive ? reactive.tryAcquireAllFuture(rules) : CompletableFuture.supplyAsync(() -> tryAcquireAll(rules));
+    }
+
+    @Override
+    public void destroy() {
+        if (null != sweeper) {
+            sweeper.shutdownNow();
+        }
+        // 归还所有未使用的租约令牌
+        leases.forEach((key, slot) -> refund(key, slot, slot.drain()));
+        leases.clear();
+    }
+
+    private LimiterResult withLease(LimiterRule rule) {
+        String key = withPrefix(rule.getKey());
+        while (true) {
+            LeaseSlot slot = leases.computeIfAbsent(key, k -> new LeaseSlot(rule.getCapacity(), rule.getLeaseTime().toMillis()));
+            // 本地租约充足，无需访问 redis
+            if (slot.take(rule.getQuantity(), SystemClock.now())) {
+                return LimiterResult.granted(slot.tokens.get());
+            }
+            ensureSweeper();
+            // 只有续约时才需要加锁，且只锁当前 key
+            synchronized (slot) {
+                // 已被清理线程移除，续约到其中的令牌不会再被发放或归还，改用新的租约
+                if (slot.removed) {
+                    continue;
+                }
+                // 双重检查，其他线程可能已经完成续约
+                if (slot.take(rule.getQuantity(), SystemClock.now())) {
+                    return LimiterResult.granted(slot.tokens.get());
+                }
+                // 预留一批令牌，不足 lease 时至少要满足本次所需
+                long[] res = longs(redisHelper.script(SCRIPT_BUCKET, List.class, Collections.singletonList(key), bucketArgs(rule, rule.getLease())));
+                if (res[0] < rule.getQuantity()) {
+                    return LimiterResult.denied(res[1], micros(res[2]));
+                }
+                // 本次所需之外的部分作为新租约，同时归还旧租约中剩余的令牌
+                refund(key, slot, slot.renew(res[0] - rule.getQuantity(), SystemClock.now() + slot.leaseMillis));
+                return LimiterResult.granted(res[0] - rule.getQuantity());
+            }
+        }
+    }
+
+    /**
+     * 构建单个规则的脚本调用，不支持租约模式
+     *
+     * @param rule 限流规则
+     * @return 脚本调用
+     */
+    ScriptCall scriptCall(LimiterRule rule) {
+        List<String> keys = Collections.singletonList(withPrefix(rule.getKey()));
+        if (rule.algorithm() == Algorithm.GCRA) {
+            // 时间统一为微秒，支持亚秒级的时间窗口
+            return new ScriptCall(SCRIPT_GCRA, keys, new Object[]{rule.getCapacity() + "", micros(rule.getPeriod()) + "", rule.getQuota() + "", rule.getQuantity() + ""}, LimiterHelper::single);
         }
+        return new ScriptCall(SCRIPT_BUCKET, keys, bucketArgs(rule, rule.getQuantity()), LimiterHelper::single);
     }
 
-    @SuppressWarnings("rawtypes")
-    private boolean withLuaScript(String key, long quota, Duration period, long quantity, long capacity) {
-        DefaultRedisScript<List> script = new DefaultRedisScript<>();
-        script.setLocation(new ClassPathResource("script/rate_limiter_bucket.lua"));
-        script.setResultType(List.class);
+    /**
+     * 构建多个规则一次性校验的脚本调用
+     *
+     * @param rules 限流规则
+     * @return 脚本调用
+     */
+    ScriptCall scriptCall(List<LimiterRule> rules) {
+        List<String> keys = new ArrayList<>(rules.size());
+        Object[] args = new Object[rules.size() * 5];
+        for (int i = 0; i < rules.size(); i++) {
+            LimiterRule rule = rules.get(i);
+            boolean gcra = rule.algorithm() == Algorithm.GCRA;
+            keys.add(withPrefix(rule.getKey()));
+            // 使用 StringRedisTemplate，需将所有参数转换成 String
+            args[i * 5] = gcra ? "2" : "1";
+            args[i * 5 + 1] = rule.getCapacity() + "";
+            args[i * 5 + 2] = (gcra ? micros(rule.getPeriod()) : Math.max(rule.getPeriod().getSeconds(), 1L)) + "";
+            args[i * 5 + 3] = rule.getQuota() + "";
+            args[i * 5 + 4] = rule.getQuantity() + "";
+        }
+        return new ScriptCall(SCRIPT_MULTI, keys, args, res -> {
+            long[] values = longs(res);
+            if (values[0] > 0) {
+                return LimiterResult.granted(0L);
+            }
+            // lua 中序号从 1 开始，无结果时视为第一个规则拒绝
+            LimiterRule rejected = rules.get((int) Math.max(values[1] - 1, 0L));
+            return LimiterResult.denied(0L, micros(values[2]), rejected.getKey());
+        });
+    }
+
+    /**
+     * 同步执行脚本调用
+     *
+     * @param call 脚本调用
+     * @return 申请结果
+     */
+    LimiterResult execute(ScriptCall call) {
+        return call.parse(redisHelper.script(call.script, List.class, call.keys, call.args));
+    }
+
+    private Object[] bucketArgs(LimiterRule rule, long quantity) {
         // 使用 StringRedisTemplate，需将所有参数转换成 String
-        List res = redisHelper.script(script, Collections.singletonList(withPrefix(key)), capacity + "", period.getSeconds() + "", quota + "", quantity + "");
-        return !CollectionUtils.isEmpty(res) && ((Long) res.get(0)) > 0;
-    }
-
-    private synchronized boolean withTemplate(String key, long quota, Duration period, long quantity, double capacity) {
-        // 1、先判断令牌桶是否存在
-        // - 不存在：初始化令牌桶，并设置过期时间
-        // -   存在：计算从上一次更新到现在这段时间内应该要生成的令牌数，更新令牌数量，并设置过期时间
-        // 2、查询目前令牌数
-        // - 满足所需令牌数：减掉所需令牌数后更新令牌数量，并设置过期时间
-        // -        不满足：已超过限流频率
-
-        long now = SystemClock.now() / 1000L;
-        key = withPrefix(key);
-
-        StringRedisTemplate template = redisHelper.template();
-        HashOperations<String, Object, Object> ops = template.opsForHash();
-
-        // 1、判断令牌桶是否存在
-        if (!redisHelper.exists(key)) {
-            // 不存在，初始化
-            // 保存并设置过期时间
-            ops.putAll(key, Maps.of(
-                "tokens", String.valueOf(capacity),
-                "timestamp", String.valueOf(now)
-            ));
-            template.expire(key, period);
-        } else {
-            // 存在
-            // 计算从上一次更新到现在这段时间内应该要生成的令牌数
-            double tokens = Double.parseDouble(Objects.requireNonNull(ops.get(key, "tokens")).toString());
-            long last = Long.parseLong(Objects.requireNonNull(ops.get(key, "timestamp")).toString());
-            double supply = (((double) now - (double) last) / (double) period.getSeconds()) * (double) quota;
-            if (supply > 0) {
-                // 重置令牌数量
-                tokens = Math.min(tokens + supply, capacity);
-                ops.putAll(key, Maps.of(
-                    "tokens", String.valueOf(tokens),
-                    "timestamp", String.valueOf(now)
-                ));
-                template.expire(key, period);
+        return new Object[]{rule.getCapacity() + "", Math.max(rule.getPeriod().getSeconds(), 1L) + "", rule.getQuota() + "", quantity + "", rule.getQuantity() + ""};
+    }
+
+    private void refund(String key, LeaseSlot slot, long tokens) {
+        if (tokens <= 0L) {
+            return;
+        }
+        try {
+            redisHelper.script(SCRIPT_BUCKET_REFUND, Long.class, Collections.singletonList(key), slot.capacity + "", tokens + "");
+        } catch (Exception ignored) {
+            // 归还失败时令牌桶会按速率自然恢复
+        }
+    }
+
+    /**
+     * 启动租约清理线程，定时归还已过期租约中未使用的令牌
+     */
+    private void ensureSweeper() {
+        if (null != sweeper) {
+            return;
+        }
+        synchronized (leases) {
+            if (null == sweeper) {
+                ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "Limiter Lease Sweeper");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                scheduler.scheduleWithFixedDelay(this::sweep, 1, 1, TimeUnit.SECONDS);
+                sweeper = scheduler;
             }
         }
+    }
+
+    private void sweep() {
+        long now = SystemClock.now();
+        leases.forEach((key, slot) -> {
+            if (!slot.expired(now)) {
+                return;
+            }
+            long remain;
+            // 与续约互斥，续约中的租约不清理，已移除的租约不再续约
+            synchronized (slot) {
+                if (!slot.expired(SystemClock.now())) {
+                    return;
+                }
+                slot.removed = true;
+                leases.remove(key, slot);
+                remain = slot.drain();
+            }
+            refund(key, slot, remain);
+        });
+    }
 
-        double tokens = Double.parseDouble(Objects.requireNonNull(ops.get(key, "tokens")).toString());
+    /**
+     * 解析单个令牌桶的脚本结果：[发放的令牌数, 剩余令牌数, 补足令牌需等待的时间（μs）]
+     */
+    private static LimiterResult single(List<?> res) {
+        long[] values = longs(res);
+        return values[0] > 0 ? LimiterResult.granted(values[1]) : LimiterResult.denied(values[1], micros(values[2]));
+    }
 
-        if (tokens < quantity) {
-            // 令牌数量不足，返回0表示已超过限流，同时返回剩余令牌数
-            return false;
+    private static long[] longs(List<?> res) {
+        long[] values = new long[3];
+        for (int i = 0; null != res && i < Math.min(res.size(), values.length); i++) {
+            values[i] = ((Number) res.get(i)).longValue();
         }
-        // 令牌充足
-        // 重置剩余令牌数
-        tokens -= quantity;
-        ops.putAll(key, Maps.of(
-            "tokens", String.valueOf(tokens),
-            "timestamp", String.valueOf(now)
-        ));
-        template.expire(key, period);
-        // 令牌获取成功
-        return true;
+        return values;
+    }
+
+    private static long micros(Duration duration) {
+        return TimeUnit.NANOSECONDS.toMicros(duration.toNanos());
+    }
+
+    private static Duration micros(long micros) {
+        return Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(micros));
+    }
+
+    private String keys(List<LimiterRule> rules) {
+        return rules.stream().map(LimiterRule::getKey).collect(Collectors.joining(", "));
     }
 
     /**
@@ -129,4 +348,74 @@ public class LimiterHelper {
     private String withPrefix(String key) {
         return RedisHelper.withPrefix(redisHelper.keyPrefix(), key, original -> original);
     }
+
+    /**
+     * 一次限流脚本调用
+     * <p>
+     * 同步和响应式执行共用同一份参数构建和结果解析
+     */
+    static class ScriptCall {
+        final String script;
+        final List<String> keys;
+        final Object[] args;
+        private final Function<List<?>, LimiterResult> parser;
+
+        ScriptCall(String script, List<String> keys, Object[] args, Function<List<?>, LimiterResult> parser) {
+            this.script = script;
+            this.keys = keys;
+            this.args = args;
+            this.parser = parser;
+        }
+
+        LimiterResult parse(List<?> res) {
+            return parser.apply(res);
+        }
+    }
+
+    /**
+     * 本地租约
+     * <p>
+     * 令牌计数无锁扣减，续约由调用方对当前实例加锁完成
+     */
+    private static class LeaseSlot {
+        private final AtomicLong tokens = new AtomicLong();
+        private final long capacity;
+        private final long leaseMillis;
+        private volatile long expireAt;
+        // 已被清理线程移除，只在持有 slot 锁时读写
+        private boolean removed;
+
+        LeaseSlot(long capacity, long leaseMillis) {
+            this.capacity = capacity;
+            this.leaseMillis = leaseMillis;
+        }
+
+        boolean take(long quantity, long now) {
+            if (expired(now)) {
+                return false;
+            }
+            long current;
+            do {
+                current = tokens.get();
+                if (current < quantity) {
+                    return false;
+                }
+            } while (!tokens.compareAndSet(current, current - quantity));
+            return true;
+        }
+
+        long renew(long granted, long expireAt) {
+            long remain = tokens.getAndSet(granted);
+            this.expireAt = expireAt;
+            return remain;
+        }
+
+        long drain() {
+            return tokens.getAndSet(0L);
+        }
+
+        boolean expired(long now) {
+            return now >= expireAt;
+        }
+    }
 }
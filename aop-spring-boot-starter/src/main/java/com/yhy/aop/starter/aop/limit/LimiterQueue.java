@@ -0,0 +1,98 @@
+package com.yhy.aop.starter.aop.limit;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 限流等待队列
+ * <p>
+ * 令牌不足时，同一 key 的等待者在本地公平排队，只有队首按令牌桶返回的补足时间休眠后重试，
+ * 其余等待者阻塞在本地锁上，不会同时涌向 redis
+ * <p>
+ * Created on 2026-10-17 14:20
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Component
+public class LimiterQueue {
+    // 未返回等待时间（如降级拒绝）时的最短重试间隔
+    private static final long MIN_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10L);
+
+    private final Map<String, Waiters> queues = new ConcurrentHashMap<>();
+
+    /**
+     * 在最长等待时间内排队重试
+     *
+     * @param key     排队标识
+     * @param maxWait 最长等待时间
+     * @param first   首次申请结果，其中的 {@link LimiterResult#getRetryAfter()} 作为首次等待时间
+     * @param attempt 重试申请
+     * @return 最后一次申请结果
+     * @throws InterruptedException 等待时被中断
+     */
+    public LimiterResult await(String key, Duration maxWait, LimiterResult first, Supplier<LimiterResult> attempt) throws InterruptedException {
+        if (first.isGranted() || null == maxWait || maxWait.isZero() || maxWait.isNegative()) {
+            return first;
+        }
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        Waiters waiters = join(key);
+        try {
+            // 带超时的 tryLock 才遵循公平策略
+            boolean queued = !waiters.lock.tryLock(0L, TimeUnit.NANOSECONDS);
+            if (queued && !waiters.lock.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return first;
+            }
+            try {
+                // 排队期间前面的等待者已休眠过，首次申请结果已过时，轮到自己时先重试一次
+                LimiterResult result = queued ? attempt.get() : first;
+                while (!result.isGranted()) {
+                    long wait = null == result.getRetryAfter() ? MIN_WAIT_NANOS : Math.max(result.getRetryAfter().toNanos(), MIN_WAIT_NANOS);
+                    if (wait > deadline - System.nanoTime()) {
+                        // 等不到令牌补足，不必白等
+                        return result;
+                    }
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                    result = attempt.get();
+                }
+                return result;
+            } finally {
+                waiters.lock.unlock();
+            }
+        } finally {
+            leave(key);
+        }
+    }
+
+    private Waiters join(String key) {
+        return queues.compute(key, (k, waiters) -> {
+            if (null == waiters) {
+                waiters = new Waiters();
+            }
+            waiters.count++;
+            return waiters;
+        });
+    }
+
+    private void leave(String key) {
+        // 最后一个等待者离开时移除，防止 key 无限增长
+        queues.computeIfPresent(key, (k, waiters) -> --waiters.count == 0 ? null : waiters);
+    }
+
+    /**
+     * 同一 key 的等待者
+     * <p>
+     * 引用计数只在 {@link ConcurrentHashMap#compute} 中修改，无需额外同步
+     */
+    private static class Waiters {
+        private final ReentrantLock lock = new ReentrantLock(true);
+        private int count;
+    }
+}
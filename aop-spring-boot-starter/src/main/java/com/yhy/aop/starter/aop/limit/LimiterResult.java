@@ -0,0 +1,79 @@
+package com.yhy.aop.starter.aop.limit;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+
+/**
+ * 令牌申请结果
+ * <p>
+ * Created on 2026-10-17 11:42
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LimiterResult {
+
+    /**
+     * 是否申请成功
+     */
+    private boolean granted;
+
+    /**
+     * 剩余令牌数
+     */
+    private long remaining;
+
+    /**
+     * 申请失败时，需要等待多久才可能申请成功
+     * <p>
+     * 算法无法给出时为 {@link Duration#ZERO}
+     */
+    private Duration retryAfter;
+
+    /**
+     * 申请失败时，拒绝申请的令牌桶标识
+     */
+    private String key;
+
+    /**
+     * 申请成功
+     *
+     * @param remaining 剩余令牌数
+     * @return 结果
+     */
+    public static LimiterResult granted(long remaining) {
+        return new LimiterResult(true, remaining, Duration.ZERO, null);
+    }
+
+    /**
+     * 申请失败
+     *
+     * @param remaining  剩余令牌数
+     * @param retryAfter 需等待的时间
+     * @return 结果
+     */
+    public static LimiterResult denied(long remaining, Duration retryAfter) {
+        return denied(remaining, retryAfter, null);
+    }
+
+    /**
+     * 申请失败
+     *
+     * @param remaining  剩余令牌数
+     * @param retryAfter 需等待的时间
+     * @param key        拒绝申请的令牌桶标识
+     * @return 结果
+     */
+    public static LimiterResult denied(long remaining, Duration retryAfter, String key) {
+        return new LimiterResult(false, remaining, null == retryAfter ? Duration.ZERO : retryAfter, key);
+    }
+}
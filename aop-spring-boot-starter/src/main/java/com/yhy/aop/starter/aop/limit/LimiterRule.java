@@ -0,0 +1,165 @@
+package com.yhy.aop.starter.aop.limit;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 限流规则
+ * <p>
+ * 由 {@link Limiter} 注解解析而来，也可直接构建后交由 {@link LimiterHelper} 使用
+ * <p>
+ * Created on 2026-10-17 10:12
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class LimiterRule {
+
+    /**
+     * 令牌桶标识，已解析占位符
+     */
+    private String key;
+
+    /**
+     * 令牌桶容量
+     */
+    private long capacity;
+
+    /**
+     * 生成一批令牌的单位时间
+     */
+    private Duration period;
+
+    /**
+     * 单位时间内生成令牌的数量
+     */
+    private long quota;
+
+    /**
+     * 每次需要获取的令牌数
+     */
+    private long quantity;
+
+    /**
+     * 限流算法，默认 {@link Algorithm#TOKEN_BUCKET}
+     */
+    private Algorithm algorithm;
+
+    /**
+     * 限流作用范围，默认 {@link Scope#DISTRIBUTED}
+     */
+    private Scope scope;
+
+    /**
+     * redis 不可用时的降级策略，默认 {@link Fallback#LOCAL}
+     */
+    private Fallback fallback;
+
+    /**
+     * 租约模式下每次从令牌桶预留的令牌数，小于等于 {@link #quantity} 时不启用租约
+     */
+    private long lease;
+
+    /**
+     * 租约有效期，过期后未使用的令牌归还令牌桶
+     */
+    private Duration leaseTime;
+
+    /**
+     * 令牌不足时的最长等待时间，为空或不大于 0 时不等待
+     */
+    private Duration maxWait;
+
+    /**
+     * 是否启用租约模式
+     *
+     * @return 是否启用
+     */
+    public boolean leased() {
+        return algorithm() == Algorithm.TOKEN_BUCKET && lease > quantity && null != leaseTime && !leaseTime.isZero() && !leaseTime.isNegative();
+    }
+
+    /**
+     * 限流算法
+     *
+     * @return 限流算法，未设置时为 {@link Algorithm#TOKEN_BUCKET}
+     */
+    public Algorithm algorithm() {
+        return null == algorithm ? Algorithm.TOKEN_BUCKET : algorithm;
+    }
+
+    /**
+     * 限流作用范围
+     *
+     * @return 作用范围，未设置时为 {@link Scope#DISTRIBUTED}
+     */
+    public Scope scope() {
+        return null == scope ? Scope.DISTRIBUTED : scope;
+    }
+
+    /**
+     * 降级策略
+     *
+     * @return 降级策略，未设置时为 {@link Fallback#LOCAL}
+     */
+    public Fallback fallback() {
+        return null == fallback ? Fallback.LOCAL : fallback;
+    }
+
+    /**
+     * 合并 key 相同的规则，所需令牌数累加，其余配置以第一条为准
+     * <p>
+     * 同一令牌桶在一次多 key 申请中只能检查和扣减一次，否则各条规则单独检查都能通过，最终却被重复扣减
+     *
+     * @param rules 限流规则
+     * @return 合并后的规则，没有重复时返回原列表
+     */
+    public static List<LimiterRule> merge(List<LimiterRule> rules) {
+        if (rules.size() < 2) {
+            return rules;
+        }
+        Map<String, LimiterRule> merged = new LinkedHashMap<>(rules.size());
+        for (LimiterRule rule : rules) {
+            merged.merge(rule.getKey(), rule, (first, next) -> first.toBuilder().quantity(first.getQuantity() + next.getQuantity()).build());
+        }
+        return merged.size() == rules.size() ? rules : new ArrayList<>(merged.values());
+    }
+
+    /**
+     * 从注解解析规则
+     *
+     * @param limiter 注解
+     * @param key     已解析占位符的 key
+     * @return 限流规则
+     */
+    public static LimiterRule of(Limiter limiter, String key) {
+        // 容量默认值为 quota
+        long capacity = limiter.capacity() > 0L ? limiter.capacity() : limiter.quota();
+        return LimiterRule.builder()
+            .key(key)
+            .capacity(capacity)
+            .period(Duration.of(limiter.period(), limiter.periodUnit()))
+            .quota(limiter.quota())
+            .quantity(limiter.quantity())
+            .algorithm(limiter.algorithm())
+            .scope(limiter.scope())
+            .fallback(limiter.fallback())
+            .lease(limiter.lease())
+            .leaseTime(Duration.of(limiter.leaseTime(), limiter.leaseTimeUnit()))
+            .maxWait(Duration.of(limiter.maxWait(), limiter.maxWaitUnit()))
+            .build();
+    }
+}
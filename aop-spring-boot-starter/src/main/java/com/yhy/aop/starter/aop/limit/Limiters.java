@@ -0,0 +1,29 @@
+package com.yhy.aop.starter.aop.limit;
+
+import java.lang.annotation.*;
+
+/**
+ * 多级限流器
+ * <p>
+ * {@link Limiter} 的容器注解，同一方法上的多个限流器（如用户级、租户级、全局）一次性原子校验并扣减，
+ * 任一限流器拒绝时不会扣减其他限流器的令牌
+ * <p>
+ * Created on 2026-10-17 14:30
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+public @interface Limiters {
+
+    /**
+     * 限流器
+     *
+     * @return 限流器
+     */
+    Limiter[] value();
+}
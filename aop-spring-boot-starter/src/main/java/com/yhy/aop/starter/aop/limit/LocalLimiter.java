@@ -0,0 +1,296 @@
+package com.yhy.aop.starter.aop.limit;
+
+import com.yhy.jakit.util.system.SystemClock;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 进程内限流器
+ * <p>
+ * 无锁分段令牌桶：每个令牌桶拆分为若干段，每段的令牌数和上次补充时间打包在一个 long 中，通过 CAS 更新
+ * <p>
+ * 线程优先从自己的段中扣减，不足时再尝试其他段，热点 key 下的 CAS 竞争被分散到多个缓存行
+ * <p>
+ * 可单独用于单实例限流，也可作为 redis 不可用时的降级方案
+ * <p>
+ * Created on 2026-10-17 13:30
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Component
+public class LocalLimiter implements LimiterBackend, DisposableBean {
+    private static final long EPOCH = SystemClock.now();
+    private static final int MAX_STRIPES = Math.min(Integer.highestOneBit(Runtime.getRuntime().availableProcessors()), 16);
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sweeper;
+
+    public LocalLimiter() {
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Local Limiter Sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 已补满的令牌桶与不存在的令牌桶等价，定时移除，防止 key 无限增长
+        sweeper.scheduleWithFixedDelay(this::sweep, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public LimiterResult tryAcquire(LimiterRule rule) {
+        Bucket bucket = buckets.get(rule.getKey());
+        if (null == bucket) {
+            bucket = buckets.computeIfAbsent(rule.getKey(), key -> new Bucket(rule.getCapacity(), rule.getQuota(), rule.getPeriod(), rule.getQuantity(), now()));
+        }
+        return bucket.acquire(rule.getQuantity(), now());
+    }
+
+    @Override
+    public LimiterResult tryAcquireAll(List<LimiterRule> rules) {
+        for (int i = 0; i < rules.size(); i++) {
+            LimiterResult result = tryAcquire(rules.get(i));
+            if (!result.isGranted()) {
+                // 归还之前已扣减的令牌
+                refundAll(rules.subList(0, i));
+                return LimiterResult.denied(result.getRemaining(), result.getRetryAfter(), rules.get(i).getKey());
+            }
+        }
+        return LimiterResult.granted(0L);
+    }
+
+    /**
+     * 按规则归还各自所需的令牌数
+     *
+     * @param rules 限流规则
+     */
+    public void refundAll(List<LimiterRule> rules) {
+        rules.forEach(rule -> refund(rule, rule.getQuantity()));
+    }
+
+    /**
+     * 归还令牌
+     * <p>
+     * 归还后不超过令牌桶容量
+     *
+     * @param rule     限流规则
+     * @param quantity 归还的令牌数
+     */
+    public void refund(LimiterRule rule, long quantity) {
+        Bucket bucket = buckets.get(rule.getKey());
+        if (null != bucket && quantity > 0L) {
+            bucket.refund(quantity, now());
+        }
+    }
+
+    /**
+     * redis 不可用时按规则降级
+     *
+     * @param rule 限流规则
+     * @return 申请结果
+     */
+    public LimiterResult fallback(LimiterRule rule) {
+        switch (rule.fallback()) {
+            case OPEN:
+                return LimiterResult.granted(0L);
+            case REJECT:
+                return LimiterResult.denied(0L, Duration.ZERO);
+            case LOCAL:
+            default:
+                return tryAcquire(rule);
+        }
+    }
+
+    /**
+     * redis 不可用时按多个规则降级
+     * <p>
+     * 任一规则为 {@link Fallback#REJECT} 时直接拒绝，{@link Fallback#OPEN} 的规则跳过，其余在进程内一次性申请
+     *
+     * @param rules 限流规则
+     * @return 申请结果
+     */
+    public LimiterResult fallbackAll(List<LimiterRule> rules) {
+        List<LimiterRule> locals = new ArrayList<>(rules.size());
+        for (LimiterRule rule : rules) {
+            if (rule.fallback() == Fallback.REJECT) {
+                return LimiterResult.denied(0L, Duration.ZERO, rule.getKey());
+            }
+            if (rule.fallback() == Fallback.LOCAL) {
+                locals.add(rule);
+            }
+        }
+        return tryAcquireAll(locals);
+    }
+
+    @Override
+    public void destroy() {
+        sweeper.shutdownNow();
+        buckets.clear();
+    }
+
+    private void sweep() {
+        long now = now();
+        buckets.forEach((key, bucket) -> {
+            if (bucket.full(now)) {
+                buckets.remove(key, bucket);
+            }
+        });
+    }
+
+    private static long now() {
+        return SystemClock.now() - EPOCH;
+    }
+
+    /**
+     * 分段令牌桶
+     * <p>
+     * 每段状态：高 24 位为令牌数，低 40 位为上次补充时间（ms，相对 {@link #EPOCH}，约 34 年）
+     */
+    static class Bucket {
+        private static final int TIME_BITS = 40;
+        private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+        private static final long MAX_TOKENS = (1L << (Long.SIZE - TIME_BITS)) - 1;
+        // 每段占满一个缓存行（8 个 long），避免伪共享
+        private static final int PADDING = 8;
+        // 每段至少能容纳的请求数，太少时不分段
+        private static final int MIN_REQUESTS_PER_STRIPE = 4;
+
+        private final AtomicLongArray cells;
+        private final long[] capacities;
+        private final long[] quotas;
+        private final long[] fills;
+        private final long period;
+        private final int mask;
+
+        Bucket(long capacity, long quota, Duration period, long quantity, long now) {
+            this.period = Math.max(period.toMillis(), 1L);
+            int stripes = 1;
+            while (stripes < MAX_STRIPES && capacity / (stripes * 2L) >= Math.max(quantity, 1L) * MIN_REQUESTS_PER_STRIPE && quota / (stripes * 2L) >= 1L) {
+                stripes <<= 1;
+            }
+            mask = stripes - 1;
+            cells = new AtomicLongArray(stripes * PADDING);
+            capacities = new long[stripes];
+            quotas = new long[stripes];
+            fills = new long[stripes];
+            for (int i = 0; i < stripes; i++) {
+                // 余数分给前几段
+                capacities[i] = Math.min(capacity / stripes + (i < capacity % stripes ? 1 : 0), MAX_TOKENS);
+                quotas[i] = Math.max(quota / stripes + (i < quota % stripes ? 1 : 0), 1L);
+                // 从空桶补满所需时间
+                fills[i] = (capacities[i] * this.period + quotas[i] - 1) / quotas[i];
+                cells.set(i * PADDING, pack(capacities[i], now));
+            }
+        }
+
+        LimiterResult acquire(long quantity, long now) {
+            int home = home();
+            long deficit = Long.MAX_VALUE;
+            for (int i = 0; i <= mask; i++) {
+                int stripe = (home + i) & mask;
+                long remaining = take(stripe, quantity, now);
+                if (remaining >= 0L) {
+                    return LimiterResult.granted(remaining);
+                }
+                if (i == 0) {
+                    deficit = -remaining;
+                }
+            }
+            // 按本段的补充速率估算需等待的时间
+            long wait = (deficit * period + quotas[home] - 1) / quotas[home];
+            return LimiterResult.denied(0L, Duration.ofMillis(wait));
+        }
+
+        void refund(long quantity, long now) {
+            int stripe = home();
+            int index = stripe * PADDING;
+            long state, next;
+            do {
+                state = cells.get(index);
+                long current = refill(stripe, state, now);
+                next = pack(Math.min(tokens(current) + quantity, capacities[stripe]), time(current));
+            } while (!cells.compareAndSet(index, state, next));
+        }
+
+        boolean full(long now) {
+            for (int i = 0; i <= mask; i++) {
+                if (tokens(refill(i, cells.get(i * PADDING), now)) < capacities[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 从指定段扣减令牌
+         *
+         * @return 成功时返回剩余令牌数，失败时返回缺少令牌数的相反数
+         */
+        private long take(int stripe, long quantity, long now) {
+            int index = stripe * PADDING;
+            for (; ; ) {
+                long state = cells.get(index);
+                long current = refill(stripe, state, now);
+                long tokens = tokens(current);
+                if (tokens < quantity) {
+                    return tokens - quantity;
+                }
+                if (cells.compareAndSet(index, state, pack(tokens - quantity, time(current)))) {
+                    return tokens - quantity;
+                }
+            }
+        }
+
+        /**
+         * 计算补充令牌后的状态
+         * <p>
+         * 只推进生成整数令牌所消耗的时间，不足一个令牌的部分留到下次
+         */
+        private long refill(int stripe, long state, long now) {
+            long last = time(state);
+            long elapsed = now - last;
+            if (elapsed <= 0L) {
+                return state;
+            }
+            if (elapsed >= fills[stripe]) {
+                return pack(capacities[stripe], now);
+            }
+            long produced = elapsed * quotas[stripe] / period;
+            if (produced <= 0L) {
+                return state;
+            }
+            long tokens = tokens(state) + produced;
+            if (tokens >= capacities[stripe]) {
+                return pack(capacities[stripe], now);
+            }
+            return pack(tokens, last + produced * period / quotas[stripe]);
+        }
+
+        private int home() {
+            long id = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+            return (int) (id >>> 32) & mask;
+        }
+
+        private static long pack(long tokens, long time) {
+            return (tokens << TIME_BITS) | (time & TIME_MASK);
+        }
+
+        private static long tokens(long state) {
+            return state >>> TIME_BITS;
+        }
+
+        private static long time(long state) {
+            return state & TIME_MASK;
+        }
+    }
+}
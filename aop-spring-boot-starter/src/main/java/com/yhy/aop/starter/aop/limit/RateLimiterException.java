@@ -1,5 +1,7 @@
 package com.yhy.aop.starter.aop.limit;
 
+import java.time.Duration;
+
 /**
  * 限流异常
  * <p>
@@ -10,6 +12,7 @@ package com.yhy.aop.starter.aop.limit;
  * @since 1.0.0
  */
 public class RateLimiterException extends RuntimeException {
+    private final Duration retryAfter;
 
     /**
      * 限流异常
@@ -24,6 +27,26 @@ public class RateLimiterException extends RuntimeException {
      * @param message 异常信息
      */
     public RateLimiterException(String message) {
+        this(message, Duration.ZERO);
+    }
+
+    /**
+     * 限流异常
+     *
+     * @param message    异常信息
+     * @param retryAfter 需等待的时间
+     */
+    public RateLimiterException(String message, Duration retryAfter) {
         super(message);
+        this.retryAfter = null == retryAfter ? Duration.ZERO : retryAfter;
+    }
+
+    /**
+     * 需等待多久才可能申请成功
+     *
+     * @return 需等待的时间，未知时为 {@link Duration#ZERO}
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
     }
 }
@@ -0,0 +1,148 @@
+package com.yhy.aop.starter.aop.limit;
+
+import com.yhy.jakit.starter.helper.RedisHelper;
+import com.yhy.jakit.starter.helper.RedisScriptRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 响应式辅助类
+ * <p>
+ * redis 分布式限流的非阻塞实现，脚本通过 lettuce 的响应式连接执行，不占用调用线程，可在 WebFlux 等事件循环线程中使用
+ * <p>
+ * 与 {@link LimiterHelper} 共用脚本参数和结果解析，redis 不可用时同样按 {@link LimiterRule#fallback()} 降级
+ * <p>
+ * Created on 2026-10-17 15:05
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@AutoConfigureAfter(LimiterHelper.class)
+@ConditionalOnBean(LimiterHelper.class)
+@ConditionalOnClass({Mono.class, ReactiveStringRedisTemplate.class})
+public class ReactiveLimiterHelper {
+    private final Map<ReactiveRedisConnectionFactory, ReactiveStringRedisTemplate> templates = new ConcurrentHashMap<>();
+
+    @Autowired
+    private LimiterHelper limiterHelper;
+    @Autowired
+    private LocalLimiter localLimiter;
+    @Autowired
+    private RedisHelper redisHelper;
+    @Autowired
+    private RedisScriptRegistry scriptRegistry;
+
+    /**
+     * 申请一个分布式限流器令牌
+     *
+     * @param rule 限流规则
+     * @return 令牌是否申请成功
+     */
+    public Mono<Boolean> acquire(LimiterRule rule) {
+        return tryAcquire(rule).map(LimiterResult::isGranted);
+    }
+
+    /**
+     * 申请一个分布式限流器令牌，并返回剩余令牌数及需等待的时间
+     * <p>
+     * 租约续约需要对本地租约加锁，租约模式在弹性线程池中执行
+     *
+     * @param rule 限流规则
+     * @return 申请结果
+     */
+    public Mono<LimiterResult> tryAcquire(LimiterRule rule) {
+        if (rule.leased()) {
+            return Mono.fromCallable(() -> limiterHelper.tryAcquire(rule)).subscribeOn(Schedulers.boundedElastic());
+        }
+        return Mono.defer(() -> execute(limiterHelper.scriptCall(rule))).onErrorResume(e -> {
+            log.warn("分布式限流器【{}】不可用，按【{}】降级：{}", rule.getKey(), rule.fallback(), e.getMessage());
+            return Mono.fromSupplier(() -> localLimiter.fallback(rule));
+        });
+    }
+
+    /**
+     * 按多个规则原子申请分布式限流器令牌，key 相同的规则合并为一次申请
+     *
+     * @param limiterRules 限流规则
+     * @return 申请结果，失败时携带拒绝申请的令牌桶标识
+     */
+    public Mono<LimiterResult> tryAcquireAll(List<LimiterRule> limiterRules) {
+        List<LimiterRule> rules = LimiterRule.merge(limiterRules);
+        if (rules.isEmpty()) {
+            return Mono.just(LimiterResult.granted(0L));
+        }
+        if (rules.size() == 1) {
+            return tryAcquire(rules.get(0));
+        }
+        return Mono.defer(() -> execute(limiterHelper.scriptCall(rules))).onErrorResume(e -> {
+            log.warn("分布式限流器【{}】不可用，按各自的策略降级：{}", rules.stream().map(LimiterRule::getKey).collect(Collectors.joining(", ")), e.getMessage());
+            return Mono.fromSupplier(() -> localLimiter.fallbackAll(rules));
+        });
+    }
+
+    /**
+     * 以 {@link CompletableFuture} 形式申请，供 {@link LimiterHelper#tryAcquireAsync(LimiterRule)} 使用
+     *
+     * @param rule 限流规则
+     * @return 申请结果
+     */
+    public CompletableFuture<LimiterResult> tryAcquireFuture(LimiterRule rule) {
+        return tryAcquire(rule).toFuture();
+    }
+
+    /**
+     * 以 {@link CompletableFuture} 形式申请，供 {@link LimiterHelper#tryAcquireAllAsync(List)} 使用
+     *
+     * @param rules 限流规则
+     * @return 申请结果
+     */
+    public CompletableFuture<LimiterResult> tryAcquireAllFuture(List<LimiterRule> rules) {
+        return tryAcquireAll(rules).toFuture();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Mono<LimiterResult> execute(LimiterHelper.ScriptCall call) {
+        ReactiveStringRedisTemplate template = template();
+        if (null == template) {
+            // 非响应式连接（如 jedis），在弹性线程池中同步执行
+            return Mono.fromCallable(() -> limiterHelper.execute(call)).subscribeOn(Schedulers.boundedElastic());
+        }
+        return template.execute(scriptRegistry.get(call.script, List.class), call.keys, Arrays.asList(call.args))
+            .collectList()
+            .map(values -> call.parse(flatten(values)));
+    }
+
+    private static List<?> flatten(List<?> values) {
+        // 不同驱动下多行结果可能整体发射，也可能逐个元素发射
+        Object first = values.size() == 1 ? values.get(0) : null;
+        return first instanceof List ? (List<?>) first : values;
+    }
+
+    private ReactiveStringRedisTemplate template() {
+        // 动态数据源下每次调用的连接工厂可能不同
+        RedisConnectionFactory factory = redisHelper.template().getConnectionFactory();
+        if (!(factory instanceof ReactiveRedisConnectionFactory)) {
+            return null;
+        }
+        return templates.computeIfAbsent((ReactiveRedisConnectionFactory) factory, ReactiveStringRedisTemplate::new);
+    }
+}
@@ -0,0 +1,60 @@
+package com.yhy.aop.starter.aop.limit;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 响应式方法限流支持
+ * <p>
+ * 所有 reactor 相关的引用都集中在此，只有 classpath 中存在 reactor 时才会加载，未引入 reactor 的应用不受影响
+ * <p>
+ * Created on 2026-10-17 15:20
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class ReactiveLimiterSupport {
+    private ReactiveLimiterSupport() {
+        throw new UnsupportedOperationException("ReactiveLimiterSupport can not be instantiate.");
+    }
+
+    /**
+     * 返回值类型是否为 {@link Mono}
+     *
+     * @param type 返回值类型
+     * @return 是否为 Mono
+     */
+    static boolean isMono(Class<?> type) {
+        return Mono.class.isAssignableFrom(type);
+    }
+
+    /**
+     * 在订阅时申请令牌，申请成功后再执行原方法
+     * <p>
+     * 令牌未能立即申请到时，切换到 boundedElastic 调度器再执行原方法，避免原方法和下游操作阻塞 redis 的 I/O 线程
+     *
+     * @param permit   申请令牌
+     * @param rejected 申请失败时的异常
+     * @param proceed  执行原方法，返回 Mono
+     * @return 限流后的 Mono
+     */
+    static Mono<?> limit(Supplier<CompletableFuture<LimiterResult>> permit, Function<LimiterResult, ? extends Throwable> rejected, Callable<Object> proceed) {
+        return Mono.defer(() -> {
+            CompletableFuture<LimiterResult> future = permit.get();
+            Mono<LimiterResult> result = Mono.fromFuture(future);
+            // 已完成时直接在订阅线程执行，与 CompletableFuture 的处理一致
+            return future.isDone() ? result : result.publishOn(Schedulers.boundedElastic());
+        }).flatMap(result -> {
+            if (!result.isGranted()) {
+                return Mono.error(rejected.apply(result));
+            }
+            return Mono.fromCallable(proceed).flatMap(mono -> (Mono<?>) mono);
+        });
+    }
+}
@@ -0,0 +1,24 @@
+package com.yhy.aop.starter.aop.limit;
+
+/**
+ * 限流作用范围
+ * <p>
+ * Created on 2026-10-17 13:22
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public enum Scope {
+
+    /**
+     * 分布式限流，所有实例共享 redis 中的令牌
+     */
+    DISTRIBUTED,
+
+    /**
+     * 进程内限流，每个实例各自计数，不访问 redis
+     */
+    LOCAL,
+    ;
+}
@@ -26,7 +26,25 @@ public @interface Locker {
      *
      * @return 键值
      */
-    String key();
+    String key() default "";
+
+    /**
+     * 多个键值，与 {@link #key()} 合并后一次性全部获取或全部不获取，集群模式下需位于同一 slot
+     * <p>
+     * 支持参数占位符，同 {@link #key()}
+     *
+     * @return 键值
+     */
+    String[] keys() default {};
+
+    /**
+     * 锁模式，默认 {@link Mode#WRITE}
+     * <p>
+     * 同一线程可重入，{@link Mode#READ} 时多个读者可同时持有
+     *
+     * @return 锁模式
+     */
+    Mode mode() default Mode.WRITE;
 
     /**
      * 过期时间，默认 20
@@ -63,6 +81,16 @@ public @interface Locker {
      */
     TimeUnit intervalUnit() default TimeUnit.MILLISECONDS;
 
+    /**
+     * 方法执行期间是否由看门狗自动续约，默认 false，锁在 {@link #expiry()} 后过期
+     * <p>
+     * 启用时 {@link #expiry()} 作为租约时长，每过 1/3 续约一次，方法执行完后停止续约，
+     * 实例宕机后最多一个租约时长即自动释放；租约时长不能小于 {@link LockerHelper#MIN_WATCHDOG_LEASE} ms
+     *
+     * @return 是否自动续约
+     */
+    boolean watchdog() default false;
+
     /**
      * 方法执行完后，是否自动解锁
      *
@@ -1,6 +1,7 @@
 package com.yhy.aop.starter.aop.lock;
 
-import com.yhy.jakit.util.PlaceholderUtils;
+import com.yhy.aop.starter.aop.metrics.AopMetrics;
+import com.yhy.jakit.util.PlaceholderTemplate;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
@@ -9,13 +10,20 @@ import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * 分布式锁切面
  * <p>
+ * 申请耗时、重试次数与持有时长按 key 模板记录到 {@link AopMetrics}
+ * <p>
  * Created on 2020-07-04 20:15
  *
  * @author 颜洪毅
@@ -29,6 +37,8 @@ import java.util.UUID;
 public class LockerAspect {
     @Autowired(required = false)
     private LockerHelper helper;
+    @Autowired(required = false)
+    private AopMetrics metrics = AopMetrics.NONE;
 
     /**
      * 环绕增强
@@ -46,25 +56,66 @@ public class LockerAspect {
         Method method = signature.getMethod();
         Locker locker = method.getAnnotation(Locker.class);
 
-        // 从方法参数中填充 key 占位符
-        // 支持占位符从参数自动填充
-        String key = PlaceholderUtils.resolve(locker.key(), signature.getParameterNames(), point.getArgs());
+        // 从方法参数中填充 key 占位符，模板按方法预编译
+        // 多个键值时排序去重，按固定顺序申请避免死锁
+        List<String> templates = templates(locker);
+        List<String> keys = templates.stream()
+            .map(template -> PlaceholderTemplate.of(method, template, signature.getParameterNames()).resolve(point.getArgs()))
+            .distinct()
+            .sorted()
+            .collect(Collectors.toList());
+        String key = String.join(", ", keys);
+
+        String template = String.join(", ", templates);
 
-        log.info("申请分布式锁【{}】...", key);
-        boolean locked = helper.tryLock(key, UUID.randomUUID().toString(), locker.expiry(), locker.expiryUnit(), locker.retry(), locker.interval(), locker.intervalUnit());
+        log.debug("申请分布式锁【{}】...", key);
+        // 自动解锁时以当前线程作为持有者，嵌套调用时可重入
+        // 不自动解锁时锁留待租约到期，用于防重复提交，每次调用使用独立的持有者，同一线程的后续请求不能重入
+        String value = locker.autoUnlock() ? helper.owner() : UUID.randomUUID().toString();
+        long start = System.nanoTime();
+        int[] attempts = {0};
+        boolean locked = helper.tryLock(keys, value, locker.mode(), locker.expiry(), locker.expiryUnit(), locker.retry(), locker.interval(), locker.intervalUnit(), () -> attempts[0]++);
+        long acquiredAt = System.nanoTime();
+        metrics.locker(template, locked, acquiredAt - start, Math.max(attempts[0] - 1, 0));
         if (!locked) {
             log.error("获取锁【{}】失败", key);
             throw new LockerAcquireException(locker.message());
         }
-        log.info("获取锁【{}】成功！", key);
+        log.debug("获取锁【{}】成功！", key);
         try {
+            // 在 try 中启动续约，租约时长不合法时也能释放已获取的锁
+            if (locker.watchdog()) {
+                helper.watch(keys, value, locker.expiry(), locker.expiryUnit());
+            }
             return null == point.getArgs() || point.getArgs().length == 0 ? point.proceed() : point.proceed(point.getArgs());
         } finally {
             // 方法执行完后是否自动解锁
+            // 只删除自己持有的锁，不自动解锁时停止续约并移除本地持有记录，由租约到期释放
             if (locker.autoUnlock()) {
-                log.info("操作执行完成后自动解锁【{}】结果：【{}】。", key, helper.unlock(key));
+                log.debug("操作执行完成后自动解锁【{}】结果：【{}】。", key, helper.unlock(keys, value));
+            } else {
+                helper.abandon(keys, value);
             }
+            metrics.lockerHeld(template, System.nanoTime() - acquiredAt);
+        }
+    }
+
+    /**
+     * 合并 {@link Locker#key()} 和 {@link Locker#keys()}，忽略空的键值
+     *
+     * @param locker 注解
+     * @return 键值模板
+     */
+    private List<String> templates(Locker locker) {
+        List<String> templates = new ArrayList<>(locker.keys().length + 1);
+        if (StringUtils.hasText(locker.key())) {
+            templates.add(locker.key());
+        }
+        Arrays.stream(locker.keys()).filter(StringUtils::hasText).forEach(templates::add);
+        if (templates.isEmpty()) {
+            throw new IllegalArgumentException("@Locker requires key or keys");
         }
+        return templates;
     }
 }
 
@@ -1,34 +1,105 @@
 package com.yhy.aop.starter.aop.lock;
 
 import com.yhy.jakit.starter.helper.RedisHelper;
+import com.yhy.jakit.util.system.SystemClock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
 
 /**
  * redis 分布式锁实现
  * <p>
+ * 解锁时在该锁的释放通道上发布通知，等待者收到通知后立即重试，无需按固定间隔轮询
+ * <p>
+ * 同一实例内的等待者先在本地排队，只有队首向 redis 重试
+ * <p>
+ * 解锁时校验持有者，持有期间可由看门狗批量续约
+ * <p>
+ * 锁以 hash 存储持有者及其重入次数，支持可重入和读写锁
+ * <p>
  * Created on 2020-07-04 19:41
  *
  * @author 颜洪毅
  * @version 1.0.0
  * @since 1.0.0
  */
+@Slf4j
 @Component
 @AutoConfigureAfter(RedisHelper.class)
 @ConditionalOnBean(RedisHelper.class)
-public class LockerHelper {
+public class LockerHelper implements DisposableBean {
+    // 释放通知通道前缀，完整通道为前缀 + 带前缀的锁名
+    private static final String RELEASE_CHANNEL = "locker:released:";
+    // 信号量等其他资源的释放通知通道前缀，与锁的通道分开
+    private static final String RESOURCE_CHANNEL = "resource:released:";
+
+    // 实例标识，与线程 id 组成持有者标识
+    private static final String INSTANCE = UUID.randomUUID().toString();
+    private static final String SCRIPT_LOCK = "locker_lock";
+    private static final String SCRIPT_UNLOCK = "locker_unlock";
+    private static final String SCRIPT_RENEW = "locker_renew";
+    private static final String SCRIPT_EXPIRE = "locker_expire";
+    // 锁模式字段，其余字段为持有者
+    private static final String FIELD_MODE = "mode";
+    // 看门狗检查间隔（ms），只续约已到续约时间的锁
+    private static final long WATCHDOG_TICK = 200L;
+
+    /**
+     * 看门狗支持的最短租约时长（ms），更短的租约可能在两次检查之间过期
+     */
+    public static final long MIN_WATCHDOG_LEASE = WATCHDOG_TICK * 3;
+
+    private final Map<String, Signal> signals = new ConcurrentHashMap<>();
+    // 本实例持有的锁及重入次数
+    private final Map<String, Integer> held = new ConcurrentHashMap<>();
+    private final Map<String, Lease> watched = new ConcurrentHashMap<>();
+    private volatile RedisMessageListenerContainer container;
+    private volatile ScheduledExecutorService watchdog;
+
     @Autowired
     private RedisHelper redisHelper;
 
     /**
-     * 申请一个分布式锁
+     * 当前线程作为持有者的标识
+     * <p>
+     * 由实例标识和线程 id 组成，同一线程重复申请同一个锁时可重入
+     *
+     * @return 持有者标识
+     */
+    public String owner() {
+        return INSTANCE + ":" + Thread.currentThread().getId();
+    }
+
+    /**
+     * 申请一个分布式写锁
+     * <p>
+     * 申请失败时等待锁释放通知后立即重试，重试间隔仅作为未收到通知（如锁过期）时的超时兜底
      *
      * @param key          锁名
-     * @param value        锁值
+     * @param value        锁值，即持有者标识，相同持有者可重入
      * @param expiry       过期时间
      * @param expiryUnit   过期时间单位
      * @param retry        重试次数
@@ -38,39 +109,559 @@ public class LockerHelper {
      * @throws InterruptedException 可能出现的异常
      */
     public boolean tryLock(String key, Object value, long expiry, TimeUnit expiryUnit, int retry, long interval, TimeUnit intervalUnit) throws InterruptedException {
-        do {
-            Boolean result = redisHelper.template().opsForValue().setIfAbsent(withPrefix(key), value.toString(), expiry, expiryUnit);
-            if (null != result && result) {
-                return true;
-            }
-            if (retry > 0) {
-                intervalUnit.sleep(interval);
-            }
-            if (Thread.currentThread().isInterrupted()) {
-                break;
-            }
-        } while (--retry > 0);
-        return false;
+        return tryLock(key, value, Mode.WRITE, expiry, expiryUnit, retry, interval, intervalUnit);
     }
 
     /**
-     * 解锁
+     * 申请一个分布式锁
+     * <p>
+     * 同一持有者可重入，需解锁同样次数；读锁之间共享，与写锁互斥，持有写锁时也可申请读锁
+     *
+     * @param key          锁名
+     * @param value        锁值，即持有者标识，相同持有者可重入
+     * @param mode         锁模式
+     * @param expiry       过期时间
+     * @param expiryUnit   过期时间单位
+     * @param retry        重试次数
+     * @param interval     重试间隔时间
+     * @param intervalUnit 重试间隔时间单位
+     * @return 是否申请成功
+     * @throws InterruptedException 可能出现的异常
+     */
+    public boolean tryLock(String key, Object value, Mode mode, long expiry, TimeUnit expiryUnit, int retry, long interval, TimeUnit intervalUnit) throws InterruptedException {
+        return tryLock(Collections.singletonList(key), value, mode, expiry, expiryUnit, retry, interval, intervalUnit);
+    }
+
+    /**
+     * 一次性申请多个分布式锁
+     * <p>
+     * 锁名排序后在一次 lua 调用中全部获取或全部不获取，使用同一个租约时长，不会因申请顺序不同而死锁
+     * <p>
+     * 集群模式下所有 key 需位于同一 slot，如使用 hash tag
+     *
+     * @param keys         锁名
+     * @param value        锁值，即持有者标识，相同持有者可重入
+     * @param mode         锁模式
+     * @param expiry       过期时间
+     * @param expiryUnit   过期时间单位
+     * @param retry        重试次数
+     * @param interval     重试间隔时间
+     * @param intervalUnit 重试间隔时间单位
+     * @return 是否全部申请成功
+     * @throws InterruptedException 可能出现的异常
+     */
+    public boolean tryLock(List<String> keys, Object value, Mode mode, long expiry, TimeUnit expiryUnit, int retry, long interval, TimeUnit intervalUnit) throws InterruptedException {
+        return tryLock(keys, value, mode, expiry, expiryUnit, retry, interval, intervalUnit, () -> {
+        });
+    }
+
+    /**
+     * 一次性申请多个分布式锁，每次访问 redis 申请时回调，用于统计重试次数
+     *
+     * @param keys         锁名
+     * @param value        锁值，即持有者标识，相同持有者可重入
+     * @param mode         锁模式
+     * @param expiry       过期时间
+     * @param expiryUnit   过期时间单位
+     * @param retry        重试次数
+     * @param interval     重试间隔时间
+     * @param intervalUnit 重试间隔时间单位
+     * @param onAttempt    每次申请时的回调
+     * @return 是否全部申请成功
+     * @throws InterruptedException 可能出现的异常
+     */
+    boolean tryLock(List<String> keys, Object value, Mode mode, long expiry, TimeUnit expiryUnit, int retry, long interval, TimeUnit intervalUnit, Runnable onAttempt) throws InterruptedException {
+        List<String> redisKeys = withPrefix(keys);
+        String owner = value.toString();
+        String leaseMillis = Math.max(expiryUnit.toMillis(expiry), 1L) + "";
+        String modeName = mode.name().toLowerCase();
+        // 重入时无需排队
+        boolean reentrant = redisKeys.stream().allMatch(redisKey -> held.containsKey(holdKey(redisKey, owner)));
+        boolean locked = await(redisKeys, reentrant, retry, interval, intervalUnit, () -> {
+            onAttempt.run();
+            Long result = redisHelper.script(SCRIPT_LOCK, Long.class, redisKeys, owner, leaseMillis, modeName);
+            // 返回 0 表示成功，否则为被占用的锁的序号，从 1 开始
+            return null == result ? 0 : result.intValue() - 1;
+        });
+        if (locked) {
+            redisKeys.forEach(redisKey -> held.merge(holdKey(redisKey, owner), 1, Integer::sum));
+        }
+        return locked;
+    }
+
+    /**
+     * 强制解锁
+     * <p>
+     * 不校验持有者，解锁成功后发布释放通知，唤醒所有实例中等待该锁的线程，一般应使用 {@link #unlock(String, Object)}
      *
      * @param key 锁名
      * @return 是否成功
      */
     public boolean unlock(String key) {
-        Boolean result = redisHelper.template().delete(withPrefix(key));
-        return null != result && result;
+        String redisKey = withPrefix(key);
+        Boolean result = redisHelper.template().delete(redisKey);
+        if (null != result && result) {
+            // 本实例的等待者直接唤醒，无需等待通知往返
+            released(redisKey);
+            redisHelper.template().convertAndSend(RELEASE_CHANNEL + redisKey, "");
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 解锁
+     * <p>
+     * 只有持有者本人才能释放，锁已过期并被其他持有者获取时不会误删；重入多次时释放一次，全部释放后才真正解锁
+     *
+     * @param key   锁名
+     * @param value 申请时的锁值
+     * @return 是否成功，锁已不属于该持有者时返回 false
+     */
+    public boolean unlock(String key, Object value) {
+        return unlock(Collections.singletonList(key), value);
+    }
+
+    /**
+     * 一次性释放多个锁
+     *
+     * @param keys  锁名
+     * @param value 申请时的锁值
+     * @return 是否全部释放成功，部分锁已不属于该持有者时返回 false
+     */
+    public boolean unlock(List<String> keys, Object value) {
+        List<String> redisKeys = withPrefix(keys);
+        String owner = value.toString();
+        unwatch(keys, value);
+        redisKeys.forEach(redisKey -> held.computeIfPresent(holdKey(redisKey, owner), (k, count) -> count > 1 ? count - 1 : null));
+        Long result = redisHelper.script(SCRIPT_UNLOCK, Long.class, redisKeys, owner, RELEASE_CHANNEL);
+        // 本实例的等待者直接唤醒，无需等待通知往返，未完全释放时队首重试会再次失败
+        redisKeys.forEach(this::released);
+        return null != result && result == redisKeys.size();
+    }
+
+    /**
+     * 由看门狗定时续约
+     * <p>
+     * 每过租约时长的 1/3 续约一次，所有锁在一次 lua 调用中批量续约，持有期间锁不会因过期而丢失，
+     * 实例宕机后最多一个租约时长即自动释放，因此可以使用较短的过期时间
+     *
+     * @param key        锁名
+     * @param value      申请时的锁值
+     * @param expiry     租约时长
+     * @param expiryUnit 租约时长单位
+     */
+    public void watch(String key, Object value, long expiry, TimeUnit expiryUnit) {
+        watch(Collections.singletonList(key), value, expiry, expiryUnit);
+    }
+
+    /**
+     * 由看门狗定时续约多个锁
+     *
+     * @param keys       锁名
+     * @param value      申请时的锁值
+     * @param expiry     租约时长，不能小于 {@link #MIN_WATCHDOG_LEASE} ms
+     * @param expiryUnit 租约时长单位
+     */
+    public void watch(List<String> keys, Object value, long expiry, TimeUnit expiryUnit) {
+        String owner = value.toString();
+        long leaseMillis = expiryUnit.toMillis(expiry);
+        if (leaseMillis < MIN_WATCHDOG_LEASE) {
+            throw new IllegalArgumentException("Watchdog lease must be at least " + MIN_WATCHDOG_LEASE + "ms, but was " + leaseMillis + "ms");
+        }
+        long renewAt = SystemClock.now() + leaseMillis / 3;
+        // 重入时累加次数，全部停止后才不再续约
+        withPrefix(keys).forEach(redisKey -> watched.compute(holdKey(redisKey, owner), (k, lease) -> {
+            if (null == lease) {
+                lease = new Lease(redisKey, owner, leaseMillis, renewAt);
+            }
+            lease.count++;
+            return lease;
+        }));
+        ensureWatchdog();
+    }
+
+    /**
+     * 停止续约，锁将在租约到期后自动释放
+     *
+     * @param key   锁名
+     * @param value 申请时的锁值
+     */
+    public void unwatch(String key, Object value) {
+        unwatch(Collections.singletonList(key), value);
+    }
+
+    /**
+     * 停止续约多个锁
+     *
+     * @param keys  锁名
+     * @param value 申请时的锁值
+     */
+    public void unwatch(List<String> keys, Object value) {
+        withPrefix(keys).forEach(redisKey -> watched.computeIfPresent(holdKey(redisKey, value.toString()), (k, lease) -> --lease.count == 0 ? null : lease));
+    }
+
+    /**
+     * 放弃本地持有记录并停止续约，锁不再主动释放，由租约到期释放
+     * <p>
+     * 不自动解锁时使用，之后同一持有者再次申请不会被视为重入
+     *
+     * @param keys  锁名
+     * @param value 申请时的锁值
+     */
+    public void abandon(List<String> keys, Object value) {
+        String owner = value.toString();
+        unwatch(keys, value);
+        withPrefix(keys).forEach(redisKey -> held.remove(holdKey(redisKey, owner)));
+    }
+
+    /**
+     * 延迟解锁
+     * <p>
+     * 持有者继续保持锁指定时长后由过期自动释放，时长不大于 0 时立即解锁
+     *
+     * @param key   锁名
+     * @param value 申请时的锁值
+     * @param delay 继续保持的时长
+     * @param unit  时长单位
+     * @return 是否成功，锁已不属于该持有者时返回 false
+     */
+    public boolean unlockAfter(String key, Object value, long delay, TimeUnit unit) {
+        if (delay <= 0L) {
+            return unlock(key, value);
+        }
+        String redisKey = withPrefix(key);
+        String owner = value.toString();
+        unwatch(key, value);
+        held.remove(holdKey(redisKey, owner));
+        Long result = redisHelper.script(SCRIPT_EXPIRE, Long.class, Collections.singletonList(redisKey), owner, Math.max(unit.toMillis(delay), 1L) + "");
+        return null != result && result > 0L;
+    }
+
+    /**
+     * 查询锁的当前持有者
+     *
+     * @param key 锁名
+     * @return 持有者及其重入次数，未被持有时为空
+     */
+    public Map<String, Long> holders(String key) {
+        Map<Object, Object> entries = redisHelper.template().opsForHash().entries(withPrefix(key));
+        Map<String, Long> holders = new LinkedHashMap<>();
+        entries.forEach((field, count) -> {
+            if (!FIELD_MODE.equals(field)) {
+                holders.put(field.toString(), Long.parseLong(count.toString()));
+            }
+        });
+        return holders;
+    }
+
+    /**
+     * 查询锁的剩余有效时长
+     *
+     * @param key 锁名
+     * @return 剩余时长，未被持有时为 {@link Duration#ZERO}
+     */
+    public Duration ttl(String key) {
+        Long millis = redisHelper.template().getExpire(withPrefix(key), TimeUnit.MILLISECONDS);
+        return null == millis || millis <= 0L ? Duration.ZERO : Duration.ofMillis(millis);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (null != watchdog) {
+            watchdog.shutdownNow();
+        }
+        watched.clear();
+        held.clear();
+        if (null != container) {
+            container.destroy();
+        }
+    }
+
+    private void ensureWatchdog() {
+        if (null != watchdog) {
+            return;
+        }
+        synchronized (watched) {
+            if (null == watchdog) {
+                ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "Locker Watchdog");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                executor.scheduleWithFixedDelay(this::renew, WATCHDOG_TICK, WATCHDOG_TICK, TimeUnit.MILLISECONDS);
+                watchdog = executor;
+            }
+        }
+    }
+
+    /**
+     * 批量续约已到期的锁
+     */
+    private void renew() {
+        long now = SystemClock.now();
+        List<String> keys = new ArrayList<>();
+        List<Lease> leases = new ArrayList<>();
+        watched.values().forEach(lease -> {
+            if (lease.renewAt <= now) {
+                keys.add(lease.key);
+                leases.add(lease);
+            }
+        });
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<Object> renewed = new ArrayList<>(keys.size());
+        try {
+            renewed.addAll(renew(keys, leases));
+        } catch (Exception e) {
+            // 集群模式下 key 不在同一 slot 时无法批量执行，逐个续约
+            renewed.clear();
+            for (int i = 0; i < keys.size(); i++) {
+                try {
+                    List<?> result = renew(keys.subList(i, i + 1), leases.subList(i, i + 1));
+                    renewed.add(null == result || result.isEmpty() ? null : result.get(0));
+                } catch (Exception ex) {
+                    log.warn("分布式锁【{}】续约失败：{}", keys.get(i), ex.getMessage());
+                    renewed.add(null);
+                }
+            }
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            Lease lease = leases.get(i);
+            Object result = i < renewed.size() ? renewed.get(i) : null;
+            if (null == result) {
+                // 续约失败，下个周期重试
+                continue;
+            }
+            if (((Number) result).longValue() > 0L) {
+                lease.renewAt = now + lease.leaseMillis / 3;
+            } else {
+                log.warn("分布式锁【{}】已丢失，停止续约", keys.get(i));
+                watched.remove(holdKey(lease.key, lease.owner), lease);
+            }
+        }
+    }
+
+    private List<?> renew(List<String> keys, List<Lease> leases) {
+        Object[] args = new Object[keys.size() * 2];
+        for (int i = 0; i < leases.size(); i++) {
+            args[i] = leases.get(i).owner;
+            args[keys.size() + i] = leases.get(i).leaseMillis + "";
+        }
+        return redisHelper.script(SCRIPT_RENEW, List.class, keys, args);
+    }
+
+    /**
+     * 申请，失败时在本地排队等待释放通知后重试
+     * <p>
+     * 多个锁时在第一个锁上排队，等待当前占用的锁的释放通知
+     *
+     * @param redisKeys    已排序的带前缀的锁名，作为本地排队和释放通知的标识
+     * @param reentrant    是否为重入，重入时不排队
+     * @param retry        重试次数
+     * @param interval     重试间隔时间
+     * @param intervalUnit 重试间隔时间单位
+     * @param attempt      向 redis 申请一次，成功时返回 -1，否则返回被占用的锁的序号
+     * @return 是否申请成功
+     * @throws InterruptedException 可能出现的异常
+     */
+    private boolean await(List<String> redisKeys, boolean reentrant, int retry, long interval, TimeUnit intervalUnit, IntSupplier attempt) throws InterruptedException {
+        // 本实例中已有等待者时直接排队，不再访问 redis
+        boolean waiting = !reentrant && signals.containsKey(redisKeys.get(0));
+        int first = waiting ? 0 : attempt.getAsInt();
+        if (first < 0) {
+            return true;
+        }
+        if (retry <= 1) {
+            return waiting && attempt.getAsInt() < 0;
+        }
+        subscribe();
+        long deadline = System.nanoTime() + intervalUnit.toNanos(interval) * (retry - 1);
+        List<Signal> joined = redisKeys.stream().map(this::join).collect(Collectors.toList());
+        Signal head = joined.get(0);
+        try {
+            // 本实例中同一个锁只有队首线程向 redis 重试，其余线程在本地公平排队，远端竞争者数量不超过实例数
+            // 带超时的 tryLock 才遵循公平策略
+            boolean queued = !head.gate.tryLock(0L, TimeUnit.NANOSECONDS);
+            if (queued && !head.gate.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+            try {
+                // 先记录各锁的版本号再申请，申请之后的释放通知不会丢失
+                long[] seen = joined.stream().mapToLong(signal -> signal.version).toArray();
+                // 排队期间锁可能已被释放，或者尚未访问过 redis，轮到自己时先申请一次
+                int blocked = queued || waiting ? attempt.getAsInt() : first;
+                for (int i = 1; blocked >= 0 && i < retry && !Thread.currentThread().isInterrupted(); i++) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0L) {
+                        break;
+                    }
+                    // 首次申请与加入等待之间的释放通知会丢失，最多等待一个间隔
+                    joined.get(blocked).await(seen[blocked], Math.min(intervalUnit.toNanos(interval), remaining));
+                    seen = joined.stream().mapToLong(signal -> signal.version).toArray();
+                    blocked = attempt.getAsInt();
+                }
+                return blocked < 0;
+            } finally {
+                head.gate.unlock();
+            }
+        } finally {
+            redisKeys.forEach(this::leave);
+        }
+    }
+
+    /**
+     * 申请基于锁的其他资源（如信号量），失败时与锁一样在本地排队，等待 {@link #publishRelease(String)} 的释放通知后重试
+     * <p>
+     * 重试间隔仅作为未收到通知（如租约到期）时的超时兜底
+     *
+     * @param redisKey     资源在 redis 中的完整 key，需与锁名区分开，释放通知使用独立的通道
+     * @param retry        重试次数
+     * @param interval     重试间隔时间
+     * @param intervalUnit 重试间隔时间单位
+     * @param attempt      向 redis 申请一次，返回是否成功
+     * @return 是否申请成功
+     * @throws InterruptedException 可能出现的异常
+     */
+    public boolean awaitRelease(String redisKey, int retry, long interval, TimeUnit intervalUnit, BooleanSupplier attempt) throws InterruptedException {
+        return await(Collections.singletonList(redisKey), false, retry, interval, intervalUnit, () -> attempt.getAsBoolean() ? -1 : 0);
+    }
+
+    /**
+     * 发布资源释放通知，唤醒所有实例中通过 {@link #awaitRelease(String, int, long, TimeUnit, BooleanSupplier)} 等待的线程
+     *
+     * @param redisKey 资源在 redis 中的完整 key
+     */
+    public void publishRelease(String redisKey) {
+        released(redisKey);
+        redisHelper.template().convertAndSend(RESOURCE_CHANNEL + redisKey, "");
+    }
+
+    /**
+     * 首次出现等待时才订阅，所有锁共用一个模式订阅，其他资源共用另一个模式订阅
+     */
+    private void subscribe() {
+        if (null != container) {
+            return;
+        }
+        synchronized (this) {
+            if (null != container) {
+                return;
+            }
+            RedisMessageListenerContainer listener = new RedisMessageListenerContainer();
+            listener.setConnectionFactory(Objects.requireNonNull(redisHelper.template().getConnectionFactory()));
+            listener.addMessageListener((message, pattern) -> {
+                String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+                released(channel.substring(RELEASE_CHANNEL.length()));
+            }, new PatternTopic(RELEASE_CHANNEL + "*"));
+            listener.addMessageListener((message, pattern) -> {
+                String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+                released(channel.substring(RESOURCE_CHANNEL.length()));
+            }, new PatternTopic(RESOURCE_CHANNEL + "*"));
+            try {
+                listener.afterPropertiesSet();
+                listener.start();
+            } catch (Exception e) {
+                // 订阅失败时退化为按间隔轮询
+                log.warn("分布式锁释放通知订阅失败，退化为按间隔重试：{}", e.getMessage());
+            }
+            container = listener;
+        }
+    }
+
+    private void released(String redisKey) {
+        Signal signal = signals.get(redisKey);
+        if (null != signal) {
+            signal.signal();
+        }
+    }
+
+    private Signal join(String redisKey) {
+        return signals.compute(redisKey, (k, signal) -> {
+            if (null == signal) {
+                signal = new Signal();
+            }
+            signal.count++;
+            return signal;
+        });
+    }
+
+    private void leave(String redisKey) {
+        // 最后一个等待者离开时移除，防止 key 无限增长
+        signals.computeIfPresent(redisKey, (k, signal) -> --signal.count == 0 ? null : signal);
     }
 
     /**
      * 给 key 添加前缀
+     * <p>
+     * 信号量等其他基于锁的组件共用同一前缀规则，需自行在 key 前加上组件标识，与锁名区分开
      *
      * @param key 原始 key
      * @return 带前缀的 key
      */
-    private String withPrefix(String key) {
+    public String withPrefix(String key) {
         return RedisHelper.withPrefix(redisHelper.keyPrefix(), key, original -> original);
     }
+
+    /**
+     * 给多个 key 添加前缀，并去重排序
+     *
+     * @param keys 原始 key
+     * @return 带前缀的 key
+     */
+    private List<String> withPrefix(List<String> keys) {
+        return keys.stream().map(this::withPrefix).distinct().sorted().collect(Collectors.toList());
+    }
+
+    private static String holdKey(String redisKey, String owner) {
+        return redisKey + "#" + owner;
+    }
+
+    /**
+     * 看门狗续约信息
+     */
+    private static class Lease {
+        private final String key;
+        private final String owner;
+        private final long leaseMillis;
+        private volatile long renewAt;
+        // 重入次数只在 ConcurrentHashMap#compute 中修改，无需额外同步
+        private int count;
+
+        Lease(String key, String owner, long leaseMillis, long renewAt) {
+            this.key = key;
+            this.owner = owner;
+            this.leaseMillis = leaseMillis;
+            this.renewAt = renewAt;
+        }
+    }
+
+    /**
+     * 同一个锁在本实例中的等待者
+     * <p>
+     * 每次释放版本号加一，队首比较版本号判断是否有新的释放，不会丢失等待期间的通知
+     * <p>
+     * 按锁名精确区分而非分段，避免不相关的锁互相阻塞，无等待者时即移除
+     */
+    private static class Signal {
+        private final ReentrantLock gate = new ReentrantLock(true);
+        private volatile long version;
+        // 引用计数只在 ConcurrentHashMap#compute 中修改，无需额外同步
+        private int count;
+
+        synchronized void await(long seen, long nanos) throws InterruptedException {
+            long deadline = System.nanoTime() + nanos;
+            long remaining = nanos;
+            while (version == seen && remaining > 0L) {
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                remaining = deadline - System.nanoTime();
+            }
+        }
+
+        synchronized void signal() {
+            version++;
+            notifyAll();
+        }
+    }
 }
@@ -0,0 +1,24 @@
+package com.yhy.aop.starter.aop.lock;
+
+/**
+ * 锁模式
+ * <p>
+ * Created on 2026-10-17 16:10
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public enum Mode {
+
+    /**
+     * 读锁，多个持有者可同时持有，与写锁互斥
+     */
+    READ,
+
+    /**
+     * 写锁，同一时刻只有一个持有者
+     */
+    WRITE,
+    ;
+}
@@ -1,12 +1,12 @@
 package com.yhy.aop.starter.aop.log;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yhy.jakit.starter.wrapper.BodyBuffer;
 import com.yhy.jakit.starter.wrapper.RequestWrapper;
+import com.yhy.jakit.starter.wrapper.ResponseWrapper;
 import com.yhy.jakit.util.cst.Define;
 import com.yhy.jakit.util.internal.Maps;
+import com.yhy.jakit.util.internal.Trace;
 import com.yhy.jakit.util.system.SystemClock;
-import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.AfterReturning;
 import org.aspectj.lang.annotation.Aspect;
@@ -14,26 +14,26 @@ import org.aspectj.lang.annotation.Before;
 import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.jetbrains.annotations.NotNull;
-import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletRequestWrapper;
+import javax.servlet.ServletResponse;
+import javax.servlet.ServletResponseWrapper;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.lang.annotation.Annotation;
-import java.lang.reflect.Method;
-import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
 import java.util.*;
 
 /**
  * 统一控制台日志处理
  * <p>
+ * 请求线程只采集 {@link HttpLogEvent}，由 {@link HttpLogDispatcher} 在后台线程中格式化输出，可通过 {@link HttpLogProperties} 配置采样率和报文截断
+ * <p>
  * Created on 2020-05-16 21:43
  *
  * @author 颜洪毅
@@ -42,20 +42,15 @@ import java.util.*;
  */
 @Aspect
 @Component
-@Slf4j
 public class HttpLogAspect {
-    private final static SimpleDateFormat FORMAT_DATE = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.getDefault());
-    private final static SimpleDateFormat FORMAT_DATE_WEEK = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS E", Locale.getDefault());
-    private final static String header = "======================================================== {} Start ========================================================";
-    private final static String footer = "========================================================= {} End =========================================================";
-    private final static String lineSeparator = System.lineSeparator();
-    private final static String space = " ";
-    private final static ThreadLocal<Long> startAt = new InheritableThreadLocal<>();
-    private final static ThreadLocal<StringBuffer> message = new InheritableThreadLocal<>();
-    private final static ThreadLocal<ServletRequestAttributes> attributesTL = new InheritableThreadLocal<>();
+    // 只在同一请求线程中使用，不能传递给子线程，否则子线程会一直持有请求数据
+    private final static ThreadLocal<HttpLogEvent.HttpLogEventBuilder> captured = new ThreadLocal<>();
+    private final static ThreadLocal<ServletRequestAttributes> attributesTL = new ThreadLocal<>();
 
     @Autowired
-    private ObjectMapper objectMapper;
+    private HttpLogDispatcher dispatcher;
+    @Autowired
+    private HttpLogDescriptorRegistry registry;
 
     /**
      * 请求日志切面
@@ -73,67 +68,46 @@ public class HttpLogAspect {
 
     /**
      * 前置增强
+     * <p>
+     * 只采集请求信息，不做格式化
      *
      * @param point 切点
      */
     @Before("webLog()")
     public void around(JoinPoint point) {
-        String realHeader = header.replace("{}", getTraceId());
-        String banner = String.join("", Collections.nCopies(realHeader.length(), "-"));
-
-        StringBuffer sb = new StringBuffer(lineSeparator).append(realHeader).append(lineSeparator);
-        startAt.set(SystemClock.now());
-
-        sb.append(space).append(FORMAT_DATE_WEEK.format(new Date(startAt.get()))).append(lineSeparator).append(banner).append(lineSeparator);
-
         ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-        if (null == attributes) {
+        if (null == attributes || !dispatcher.sample()) {
             return;
         }
 
-        MethodSignature ms = (MethodSignature) point.getSignature();
-        Method func = ms.getMethod();
-        String className = ms.getDeclaringTypeName();
-        Object[] args = point.getArgs();
-
-        String funcSign = String.format("%s %s(%s)", func.getReturnType().getSimpleName(), func.getName(), String.join(", ", getArguments(ms)));
-
-        sb.append(space).append("---- API").append(lineSeparator)
-            .append(space).append("Class:").append(space).append(className).append(lineSeparator)
-            .append(space).append("Function:").append(space).append(funcSign).append(lineSeparator)
-            .append(space).append("Args:").append(space).append(Arrays.toString(args)).append(lineSeparator)
-            .append(space).append("Desc:").append(space).append(getDesc(point)).append(lineSeparator);
-
+        // 类名、方法签名和描述按方法缓存
+        HttpLogDescriptor descriptor = registry.get(ClassUtils.getUserClass(point.getTarget()), (MethodSignature) point.getSignature());
         HttpServletRequest request = attributes.getRequest();
-        String url = request.getRequestURL().toString();
-        String method = request.getMethod();
 
-        sb.append(lineSeparator).append(space).append("******** Request Start").append(lineSeparator)
-            .append(space).append("URL:").append(space).append(url).append(lineSeparator)
-            .append(space).append("Method:").append(space).append(method).append(lineSeparator)
-            .append(space).append("At:").append(space).append(FORMAT_DATE.format(new Date(startAt.get()))).append(lineSeparator);
+        HttpLogEvent.HttpLogEventBuilder builder = HttpLogEvent.builder()
+            .traceId(getTraceId())
+            .startAt(SystemClock.now())
+            .className(descriptor.getClassName())
+            .function(descriptor.getFunction())
+            // 参数在方法执行期间可能被修改，提前转为字符串
+            .args(Arrays.toString(point.getArgs()))
+            .desc(descriptor.getDesc())
+            .url(request.getRequestURL().toString())
+            .method(request.getMethod())
+            .requestHeaders(parseServletHeaders(request))
+            .query(request.getQueryString());
 
-        sb.append(lineSeparator).append(space).append("---- Request Header").append(lineSeparator);
-        Map<String, String> headers = parseServletHeaders(request);
-        headers.forEach((name, value) -> sb.append(space).append(name).append(":").append(space).append(value).append(lineSeparator));
-
-        sb.append(lineSeparator).append(space).append("---- Request Query").append(lineSeparator);
-        String query = request.getQueryString();
-        if (StringUtils.hasText(query)) {
-            sb.append(space).append(query).append(lineSeparator);
-        }
-
-        sb.append(lineSeparator).append(space).append("---- Request Body").append(lineSeparator);
         RequestWrapper wrapped = wrappedRequest(request);
         if (null != wrapped) {
-            byte[] body = wrapped.body();
-            if (null != body && body.length > 0) {
-                sb.append(space).append(new String(body, StandardCharsets.UTF_8).replace(lineSeparator, lineSeparator + space)).append(lineSeparator);
+            // 只复制需要记录的部分
+            BodyBuffer body = wrapped.bodyBuffer();
+            if (body.size() > 0) {
+                int max = dispatcher.maxBodyBytes();
+                builder.requestBody(body.toByteArray(max)).requestBodyTruncated(body.size() > max);
             }
         }
-        sb.append(lineSeparator).append(space).append("******** Request End").append(lineSeparator);
 
-        message.set(sb);
+        captured.set(builder);
         attributesTL.set(attributes);
     }
 
@@ -141,10 +115,9 @@ public class HttpLogAspect {
      * 后置增强
      *
      * @param result 方法返回的结果
-     * @throws JsonProcessingException json 转换异常
      */
     @AfterReturning(value = "webLog()", returning = "result")
-    public void after(Object result) throws JsonProcessingException {
+    public void after(Object result) {
         handlerAfter(result);
     }
 
@@ -154,58 +127,40 @@ public class HttpLogAspect {
      * 统一异常处理器
      *
      * @param result 方法返回的结果
-     * @throws JsonProcessingException json 转换异常
      */
     @AfterReturning(value = "expLog()", returning = "result")
-    public void afterExp(Object result) throws JsonProcessingException {
+    public void afterExp(Object result) {
         handlerAfter(result);
     }
 
-    private void handlerAfter(Object result) throws JsonProcessingException {
-        StringBuffer sb = message.get();
-        if (null == sb) {
-            // 说明没有进过 controller，此处先不处理
+    private void handlerAfter(Object result) {
+        HttpLogEvent.HttpLogEventBuilder builder = captured.get();
+        if (null == builder) {
+            // 说明没有进过 controller 或未被采样，此处先不处理
             return;
         }
         HttpServletResponse response = attributesTL.get().getResponse();
-
-        sb.append(lineSeparator).append(space).append("******** Response Start").append(lineSeparator)
-            .append(space).append("---- Response Header").append(lineSeparator);
-
-        Map<String, Collection<String>> headers = parseServletHeaders(response);
-        headers.forEach((name, value) -> sb.append(space).append(name).append(":").append(space).append(value).append(lineSeparator));
-
-        sb.append(lineSeparator).append(space).append("---- Response Body").append(lineSeparator);
-        sb.append(space).append(objectMapper.writeValueAsString(result).replace(lineSeparator, lineSeparator + space)).append(lineSeparator);
-
-        long end = SystemClock.now();
-        sb.append(lineSeparator).append(space).append("******** Response End").append(lineSeparator)
-            .append(space).append("At:").append(space).append(FORMAT_DATE.format(new Date(end))).append(lineSeparator)
-            .append(space).append("Latency:").append(space).append(end - startAt.get()).append(" ms").append(lineSeparator);
-
-        sb.append(footer.replace("{}", getTraceId()));
-
-        log.info(sb.toString());
-
-        startAt.remove();
-        message.remove();
+        captured.remove();
         attributesTL.remove();
-    }
 
-    private String[] getArguments(MethodSignature ms) {
-        if (null == ms || null == ms.getParameterTypes()) {
-            return new String[0];
+        ResponseWrapper wrapped = null == response ? null : wrappedResponse(response);
+        if (null != wrapped) {
+            // 此时响应体尚未输出，留存消息转换器输出的字节，响应完成后再投递
+            wrapped.capture(dispatcher.maxBodyBytes(), res -> dispatcher.dispatch(builder
+                .responseHeaders(parseServletHeaders((HttpServletResponse) res))
+                .responseBody(res.body())
+                .responseBodyTruncated(res.truncated())
+                .endAt(SystemClock.now())
+                .build()));
+            return;
         }
 
-        String[] result = new String[ms.getParameterTypes().length];
-        Class<?> type;
-        String name;
-        for (int i = 0; i < ms.getParameterTypes().length; i++) {
-            type = ms.getParameterTypes()[i];
-            name = ms.getParameterNames()[i];
-            result[i] = type.getSimpleName() + " " + name;
-        }
-        return result;
+        // 在请求线程中按最大字节数序列化响应结果，日志事件不持有响应结果本身
+        dispatcher.dispatch(builder
+            .result(dispatcher.serialize(result))
+            .responseHeaders(parseServletHeaders(response))
+            .endAt(SystemClock.now())
+            .build());
     }
 
     /**
@@ -237,48 +192,25 @@ public class HttpLogAspect {
         return wrappedRequest(request);
     }
 
-    @SuppressWarnings({"unchecked", "rawtypes"})
-    private String getDesc(JoinPoint point) {
-        String className = point.getTarget().getClass().getName();
-        String methodName = point.getSignature().getName();
-        Object[] args = point.getArgs();
-        try {
-            Class<?> clazz = Class.forName(className);
-            Method[] methods = clazz.getMethods();
-            Class apiOperation;
-            Annotation ann;
-            Method temp;
-            for (Method md : methods) {
-                if (md.getName().equals(methodName) && md.getParameterCount() == args.length) {
-                    // 就是他了
-                    if (md.isAnnotationPresent(HttpLog.class)) {
-                        return md.getAnnotation(HttpLog.class).value();
-                    }
-                    try {
-                        // swagger2
-                        apiOperation = Class.forName("io.swagger.annotations.ApiOperation");
-                        if (md.isAnnotationPresent(apiOperation)) {
-                            ann = md.getAnnotation(apiOperation);
-                            temp = apiOperation.getMethod("value");
-                            return temp.invoke(ann).toString();
-                        }
-                    } catch (Exception ignored) {
-                    }
-                    try {
-                        // swagger3
-                        apiOperation = Class.forName("io.swagger.v3.oas.annotations.Operation");
-                        if (md.isAnnotationPresent(apiOperation)) {
-                            ann = md.getAnnotation(apiOperation);
-                            temp = apiOperation.getMethod("summary");
-                            return temp.invoke(ann).toString();
-                        }
-                    } catch (Exception ignored) {
-                    }
-                }
-            }
-        } catch (Exception ignored) {
+    /**
+     * 递归获取已包装的 response 对象，与 {@link #wrappedRequest(ServletRequest)} 同理
+     *
+     * @param res 原始响应
+     * @return wrapper
+     */
+    private ResponseWrapper wrappedResponse(@NotNull ServletResponse res) {
+        if (!(res instanceof ServletResponseWrapper)) {
+            return null;
+        }
+        if (res instanceof ResponseWrapper) {
+            return (ResponseWrapper) res;
+        }
+
+        ServletResponse response = ((ServletResponseWrapper) res).getResponse();
+        if (response.equals(res)) {
+            return null;
         }
-        return "";
+        return wrappedResponse(response);
     }
 
     @NotNull
@@ -305,7 +237,7 @@ public class HttpLogAspect {
     }
 
     private String getTraceId() {
-        String traceId = MDC.get(Define.TRACE_ID);
+        String traceId = Trace.get(Define.TRACE_ID);
         if (StringUtils.hasText(traceId)) {
             return traceId;
         }
@@ -0,0 +1,35 @@
+package com.yhy.aop.starter.aop.log;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 接口方法的日志元数据
+ * <p>
+ * 每个接口方法只解析一次，由 {@link HttpLogDescriptorRegistry} 缓存
+ * <p>
+ * Created on 2026-10-17 18:50
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Getter
+@AllArgsConstructor
+public class HttpLogDescriptor {
+
+    /**
+     * 类名
+     */
+    private final String className;
+
+    /**
+     * 方法签名，如 String hello(String name)
+     */
+    private final String function;
+
+    /**
+     * 接口描述，来自 {@link HttpLog} 或 swagger 注解
+     */
+    private final String desc;
+}
@@ -0,0 +1,98 @@
+package com.yhy.aop.starter.aop.log;
+
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 接口方法日志元数据注册表
+ * <p>
+ * 首次访问时解析并缓存，之后只做一次 map 查找
+ * <p>
+ * Created on 2026-10-17 18:55
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Component
+public class HttpLogDescriptorRegistry {
+    // swagger 注解及其描述属性，未引入时为 null
+    private static final Method SWAGGER2_VALUE = annotationAttribute("io.swagger.annotations.ApiOperation", "value");
+    private static final Method SWAGGER3_SUMMARY = annotationAttribute("io.swagger.v3.oas.annotations.Operation", "summary");
+
+    // 同一方法可能被多个子类继承，按目标类区分
+    private final Map<Class<?>, Map<Method, HttpLogDescriptor>> descriptors = new ConcurrentHashMap<>();
+
+    /**
+     * 获取接口方法的日志元数据
+     *
+     * @param targetClass 目标类
+     * @param signature   方法签名
+     * @return 日志元数据
+     */
+    public HttpLogDescriptor get(Class<?> targetClass, MethodSignature signature) {
+        Map<Method, HttpLogDescriptor> methods = descriptors.get(targetClass);
+        if (null == methods) {
+            methods = descriptors.computeIfAbsent(targetClass, key -> new ConcurrentHashMap<>());
+        }
+        HttpLogDescriptor descriptor = methods.get(signature.getMethod());
+        if (null == descriptor) {
+            descriptor = methods.computeIfAbsent(signature.getMethod(), method -> resolve(targetClass, signature));
+        }
+        return descriptor;
+    }
+
+    private HttpLogDescriptor resolve(Class<?> targetClass, MethodSignature signature) {
+        Method method = signature.getMethod();
+        Class<?>[] types = method.getParameterTypes();
+        String[] names = signature.getParameterNames();
+        String[] arguments = new String[types.length];
+        for (int i = 0; i < types.length; i++) {
+            arguments[i] = types[i].getSimpleName() + " " + (null == names ? "arg" + i : names[i]);
+        }
+        String function = String.format("%s %s(%s)", method.getReturnType().getSimpleName(), method.getName(), String.join(", ", arguments));
+        return new HttpLogDescriptor(signature.getDeclaringTypeName(), function, desc(ClassUtils.getMostSpecificMethod(method, targetClass)));
+    }
+
+    private String desc(Method method) {
+        if (method.isAnnotationPresent(HttpLog.class)) {
+            return method.getAnnotation(HttpLog.class).value();
+        }
+        String desc = annotationValue(method, SWAGGER2_VALUE);
+        if (null != desc) {
+            return desc;
+        }
+        desc = annotationValue(method, SWAGGER3_SUMMARY);
+        return null != desc ? desc : "";
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String annotationValue(Method method, Method attribute) {
+        if (null == attribute) {
+            return null;
+        }
+        Annotation ann = method.getAnnotation((Class<? extends Annotation>) attribute.getDeclaringClass());
+        if (null == ann) {
+            return null;
+        }
+        try {
+            return String.valueOf(attribute.invoke(ann));
+        } catch (Exception ignored) {
+            return null;
+        }
+    }
+
+    private static Method annotationAttribute(String annotationName, String attributeName) {
+        try {
+            return ClassUtils.forName(annotationName, HttpLogDescriptorRegistry.class.getClassLoader()).getMethod(attributeName);
+        } catch (Throwable ignored) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.yhy.aop.starter.aop.log;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yhy.jakit.util.system.ClockFormatter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 请求日志分发器
+ * <p>
+ * 请求线程只负责采样和投递 {@link HttpLogEvent}，格式化和日志输出都在后台线程中完成，请求耗时不再随报文大小增长
+ * <p>
+ * 响应经 {@link com.yhy.jakit.starter.wrapper.ResponseWrapper} 包装时直接使用已输出的响应体，不再序列化响应结果；
+ * 否则在请求线程中按最大字节数序列化，日志事件不持有响应结果，避免后台线程读取仍可能被修改的对象
+ * <p>
+ * 缓冲区已满时丢弃新的日志并计数，不阻塞请求线程
+ * <p>
+ * 日志仍使用 {@link HttpLogAspect} 的 logger 输出，原有的日志级别配置保持有效
+ * <p>
+ * Created on 2026-10-17 18:30
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Component
+public class HttpLogDispatcher implements InitializingBean, DisposableBean {
+    private final static Logger log = LoggerFactory.getLogger(HttpLogAspect.class);
+    private final static String header = "======================================================== {} Start ========================================================";
+    private final static String footer = "========================================================= {} End =========================================================";
+    private final static String lineSeparator = System.lineSeparator();
+    private final static String space = " ";
+    private final static String truncatedMark = "...(truncated)";
+
+    private final static ClockFormatter formatDate = ClockFormatter.of("yyyy-MM-dd HH:mm:ss.SSS");
+    private final static ClockFormatter formatDateWeek = ClockFormatter.of("yyyy-MM-dd HH:mm:ss.SSS E");
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    @Autowired
+    private HttpLogProperties properties;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private BlockingQueue<HttpLogEvent> buffer;
+    private Thread worker;
+    private volatile boolean running;
+
+    @Override
+    public void afterPropertiesSet() {
+        buffer = new ArrayBlockingQueue<>(Math.max(properties.getBufferSize(), 1));
+        running = true;
+        worker = new Thread(this::work, "Http Log Writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        running = false;
+        worker.interrupt();
+        worker.join(1000L);
+        // 输出剩余的日志
+        List<HttpLogEvent> remaining = new ArrayList<>();
+        buffer.drainTo(remaining);
+        remaining.forEach(this::write);
+    }
+
+    /**
+     * 按采样率决定当前请求是否记录日志，日志级别未开启 INFO 时不记录
+     *
+     * @return 是否记录
+     */
+    public boolean sample() {
+        if (!log.isInfoEnabled()) {
+            return false;
+        }
+        double rate = properties.getSampleRate();
+        return rate >= 1.0D || rate > 0.0D && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    /**
+     * 请求体和响应体最多记录的字节数
+     *
+     * @return 最大字节数
+     */
+    public int maxBodyBytes() {
+        return Math.max(properties.getMaxBodyBytes(), 0);
+    }
+
+    /**
+     * 投递日志事件，缓冲区已满或日志级别未开启 INFO 时丢弃
+     *
+     * @param event 日志事件
+     * @return 是否投递成功
+     */
+    public boolean dispatch(HttpLogEvent event) {
+        if (!log.isInfoEnabled()) {
+            // 采样后日志级别可能被动态调整
+            return false;
+        }
+        if (buffer.offer(event)) {
+            return true;
+        }
+        long count = dropped.incrementAndGet();
+        // 按 2 的幂次提示，避免丢弃时刷屏
+        if ((count & (count - 1)) == 0) {
+            log.warn("请求日志缓冲区已满，已累计丢弃【{}】条日志", count);
+        }
+        return false;
+    }
+
+    /**
+     * 因缓冲区已满而丢弃的日志数
+     *
+     * @return 丢弃数
+     */
+    public long dropped() {
+        return dropped.get();
+    }
+
+    /**
+     * 缓冲区中待输出的日志数
+     *
+     * @return 待输出数
+     */
+    public int pending() {
+        return buffer.size();
+    }
+
+    /**
+     * 序列化响应结果，超出最大字节数时截断
+     *
+     * @param result 响应结果
+     * @return 序列化后的字符串
+     */
+    public String serialize(Object result) {
+        BoundedOutputStream out = new BoundedOutputStream(maxBodyBytes());
+        try {
+            objectMapper.writeValue(out, result);
+        } catch (IOException | RuntimeException e) {
+            // 截断时 jackson 可能将中止异常包装后抛出
+            if (!out.truncated) {
+                return "<" + e.getMessage() + ">";
+            }
+        }
+        return out.toString(StandardCharsets.UTF_8) + (out.truncated ? truncatedMark : "");
+    }
+
+    private void work() {
+        while (running) {
+            try {
+                write(buffer.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("请求日志输出失败", e);
+            }
+        }
+    }
+
+    private void write(HttpLogEvent event) {
+        if (log.isInfoEnabled()) {
+            log.info(format(event));
+        }
+    }
+
+    private String format(HttpLogEvent event) {
+        String realHeader = header.replace("{}", event.getTraceId());
+        String banner = String.join("", Collections.nCopies(realHeader.length(), "-"));
+
+        StringBuilder sb = new StringBuilder(lineSeparator).append(realHeader).append(lineSeparator);
+        sb.append(space).append(formatDateWeek.format(event.getStartAt())).append(lineSeparator).append(banner).append(lineSeparator);
+
+        sb.append(space).append("---- API").append(lineSeparator)
+            .append(space).append("Class:").append(space).append(event.getClassName()).append(lineSeparator)
+            .append(space).append("Function:").append(space).append(event.getFunction()).append(lineSeparator)
+            .append(space).append("Args:").append(space).append(event.getArgs()).append(lineSeparator)
+            .append(space).append("Desc:").append(space).append(event.getDesc()).append(lineSeparator);
+
+        sb.append(lineSeparator).append(space).append("******** Request Start").append(lineSeparator)
+            .append(space).append("URL:").append(space).append(event.getUrl()).append(lineSeparator)
+            .append(space).append("Method:").append(space).append(event.getMethod()).append(lineSeparator)
+            .append(space).append("At:").append(space).append(formatDate.format(event.getStartAt())).append(lineSeparator);
+
+        sb.append(lineSeparator).append(space).append("---- Request Header").append(lineSeparator);
+        event.getRequestHeaders().forEach((name, value) -> sb.append(space).append(name).append(":").append(space).append(value).append(lineSeparator));
+
+        sb.append(lineSeparator).append(space).append("---- Request Query").append(lineSeparator);
+        if (null != event.getQuery() && !event.getQuery().isEmpty()) {
+            sb.append(space).append(event.getQuery()).append(lineSeparator);
+        }
+
+        sb.append(lineSeparator).append(space).append("---- Request Body").append(lineSeparator);
+        byte[] body = event.getRequestBody();
+        if (null != body && body.length > 0) {
+            sb.append(space).append(new String(body, StandardCharsets.UTF_8).replace(lineSeparator, lineSeparator + space));
+            sb.append(event.isRequestBodyTruncated() ? truncatedMark : "").append(lineSeparator);
+        }
+        sb.append(lineSeparator).append(space).append("******** Request End").append(lineSeparator);
+
+        sb.append(lineSeparator).append(space).append("******** Response Start").append(lineSeparator)
+            .append(space).append("---- Response Header").append(lineSeparator);
+        event.getResponseHeaders().forEach((name, value) -> sb.append(space).append(name).append(":").append(space).append(value).append(lineSeparator));
+
+        sb.append(lineSeparator).append(space).append("---- Response Body").append(lineSeparator);
+        // 优先使用已输出的响应体，无需再次序列化
+        String responseBody = null != event.getResponseBody()
+            ? new String(event.getResponseBody(), StandardCharsets.UTF_8) + (event.isResponseBodyTruncated() ? truncatedMark : "")
+            : String.valueOf(event.getResult());
+        sb.append(space).append(responseBody.replace(lineSeparator, lineSeparator + space)).append(lineSeparator);
+
+        sb.append(lineSeparator).append(space).append("******** Response End").append(lineSeparator)
+            .append(space).append("At:").append(space).append(formatDate.format(event.getEndAt())).append(lineSeparator)
+            .append(space).append("Latency:").append(space).append(event.getEndAt() - event.getStartAt()).append(" ms").append(lineSeparator);
+
+        sb.append(footer.replace("{}", event.getTraceId()));
+        return sb.toString();
+    }
+
+    /**
+     * 超出最大字节数时中止序列化，不再序列化剩余部分
+     */
+    private static class BoundedOutputStream extends ByteArrayOutputStream {
+        private final int limit;
+        private boolean truncated;
+
+        private BoundedOutputStream(int limit) {
+            super(Math.min(limit, 256));
+            this.limit = limit;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            int remaining = limit - count;
+            if (len > remaining) {
+                super.write(b, off, Math.max(remaining, 0));
+                truncated = true;
+                throw new Truncated();
+            }
+            super.write(b, off, len);
+        }
+
+        private String toString(Charset charset) {
+            return new String(buf, 0, count, charset);
+        }
+    }
+
+    /**
+     * 中止序列化的标记
+     */
+    private static class Truncated extends RuntimeException {
+
+        private Truncated() {
+            super(null, null, false, false);
+        }
+    }
+}
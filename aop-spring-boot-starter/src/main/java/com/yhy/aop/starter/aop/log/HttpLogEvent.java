@@ -0,0 +1,43 @@
+package com.yhy.aop.starter.aop.log;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 一次请求的日志事件
+ * <p>
+ * 在请求线程中采集，创建后不再修改，由 {@link HttpLogDispatcher} 在后台线程中格式化输出
+ * <p>
+ * Created on 2026-10-17 18:25
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Getter
+@Builder
+public class HttpLogEvent {
+    private final String traceId;
+    private final long startAt;
+    private final long endAt;
+    private final String className;
+    private final String function;
+    private final String args;
+    private final String desc;
+    private final String url;
+    private final String method;
+    private final Map<String, String> requestHeaders;
+    private final String query;
+    // 已按最大字节数截断
+    private final byte[] requestBody;
+    private final boolean requestBodyTruncated;
+    private final Map<String, Collection<String>> responseHeaders;
+    // 已输出的响应体，已按最大字节数截断，未留存时为 null
+    private final byte[] responseBody;
+    private final boolean responseBodyTruncated;
+    // 未留存响应体时，在请求线程中序列化并截断的响应结果
+    private final String result;
+}
@@ -0,0 +1,35 @@
+package com.yhy.aop.starter.aop.log;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 请求日志配置
+ * <p>
+ * Created on 2026-10-17 18:20
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "http-log")
+public class HttpLogProperties {
+
+    /**
+     * 采样率，0 ~ 1，1 表示记录所有请求，0 表示不记录
+     */
+    private double sampleRate = 1.0D;
+
+    /**
+     * 请求体和响应体最多记录的字节数，超出部分截断
+     */
+    private int maxBodyBytes = 4096;
+
+    /**
+     * 待输出日志的缓冲区容量，缓冲区已满时丢弃新的日志
+     */
+    private int bufferSize = 1024;
+}
@@ -0,0 +1,54 @@
+package com.yhy.aop.starter.aop.metrics;
+
+/**
+ * 限流器与分布式锁的指标记录
+ * <p>
+ * 按注解上的 key 模板记录，而不是填充后的 key，避免指标数量随参数无限增长
+ * <p>
+ * 未引入 micrometer 时使用 {@link #NONE}，不记录任何指标
+ * <p>
+ * Created on 2026-10-17 17:55
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public interface AopMetrics {
+
+    /**
+     * 不记录任何指标
+     */
+    AopMetrics NONE = new AopMetrics() {
+    };
+
+    /**
+     * 记录一次限流器令牌申请
+     *
+     * @param template  key 模板
+     * @param granted   是否申请成功
+     * @param waitNanos 申请耗时，包含排队等待时间
+     * @param retries   重试次数
+     */
+    default void limiter(String template, boolean granted, long waitNanos, int retries) {
+    }
+
+    /**
+     * 记录一次分布式锁申请
+     *
+     * @param template  key 模板
+     * @param acquired  是否申请成功
+     * @param waitNanos 申请耗时，包含排队等待时间
+     * @param retries   重试次数
+     */
+    default void locker(String template, boolean acquired, long waitNanos, int retries) {
+    }
+
+    /**
+     * 记录一次分布式锁持有时长
+     *
+     * @param template  key 模板
+     * @param holdNanos 持有时长
+     */
+    default void lockerHeld(String template, long holdNanos) {
+    }
+}
@@ -0,0 +1,114 @@
+package com.yhy.aop.starter.aop.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 micrometer 的指标记录
+ * <p>
+ * 指标：
+ * <ul>
+ *     <li>jakit.limiter.acquire：令牌申请耗时，按 key 模板和 result（granted / denied）区分</li>
+ *     <li>jakit.limiter.retries：令牌申请重试次数</li>
+ *     <li>jakit.locker.acquire：锁申请耗时，按 key 模板和 result（acquired / failed）区分</li>
+ *     <li>jakit.locker.retries：锁申请重试次数</li>
+ *     <li>jakit.locker.held：锁持有时长</li>
+ * </ul>
+ * <p>
+ * 注册中心在首次记录时获取，未注册 {@link MeterRegistry} 时使用 {@link Metrics#globalRegistry}
+ * <p>
+ * Created on 2026-10-17 18:00
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Component
+@ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+public class MicrometerAopMetrics implements AopMetrics {
+    private static final String TAG_KEY = "key";
+    private static final String TAG_RESULT = "result";
+
+    // 按 key 模板缓存，热路径上不再经过注册中心查找
+    private final Map<String, LimiterMeters> limiters = new ConcurrentHashMap<>();
+    private final Map<String, LockerMeters> lockers = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> registryProvider;
+
+    private volatile MeterRegistry registry;
+
+    @Override
+    public void limiter(String template, boolean granted, long waitNanos, int retries) {
+        LimiterMeters meters = limiters.computeIfAbsent(template, LimiterMeters::new);
+        (granted ? meters.granted : meters.denied).record(waitNanos, TimeUnit.NANOSECONDS);
+        if (retries > 0) {
+            meters.retries.increment(retries);
+        }
+    }
+
+    @Override
+    public void locker(String template, boolean acquired, long waitNanos, int retries) {
+        LockerMeters meters = lockers.computeIfAbsent(template, LockerMeters::new);
+        (acquired ? meters.acquired : meters.failed).record(waitNanos, TimeUnit.NANOSECONDS);
+        if (retries > 0) {
+            meters.retries.increment(retries);
+        }
+    }
+
+    @Override
+    public void lockerHeld(String template, long holdNanos) {
+        lockers.computeIfAbsent(template, LockerMeters::new).held.record(holdNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private MeterRegistry registry() {
+        if (null == registry) {
+            registry = registryProvider.getIfAvailable(() -> Metrics.globalRegistry);
+        }
+        return registry;
+    }
+
+    /**
+     * 单个限流器模板的指标
+     */
+    private class LimiterMeters {
+        private final Timer granted;
+        private final Timer denied;
+        private final Counter retries;
+
+        private LimiterMeters(String template) {
+            MeterRegistry registry = registry();
+            granted = Timer.builder("jakit.limiter.acquire").description("限流器令牌申请耗时").tags(TAG_KEY, template, TAG_RESULT, "granted").register(registry);
+            denied = Timer.builder("jakit.limiter.acquire").description("限流器令牌申请耗时").tags(TAG_KEY, template, TAG_RESULT, "denied").register(registry);
+            retries = Counter.builder("jakit.limiter.retries").description("限流器令牌申请重试次数").tags(TAG_KEY, template).register(registry);
+        }
+    }
+
+    /**
+     * 单个分布式锁模板的指标
+     */
+    private class LockerMeters {
+        private final Timer acquired;
+        private final Timer failed;
+        private final Counter retries;
+        private final Timer held;
+
+        private LockerMeters(String template) {
+            MeterRegistry registry = registry();
+            acquired = Timer.builder("jakit.locker.acquire").description("分布式锁申请耗时").tags(TAG_KEY, template, TAG_RESULT, "acquired").register(registry);
+            failed = Timer.builder("jakit.locker.acquire").description("分布式锁申请耗时").tags(TAG_KEY, template, TAG_RESULT, "failed").register(registry);
+            retries = Counter.builder("jakit.locker.retries").description("分布式锁申请重试次数").tags(TAG_KEY, template).register(registry);
+            held = Timer.builder("jakit.locker.held").description("分布式锁持有时长").tags(TAG_KEY, template).register(registry);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.yhy.aop.starter.aop.schedule;
+
+import java.lang.annotation.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 定时任务锁
+ * <p>
+ * 与 {@code @Scheduled} 一起使用，每次触发时只有获取到锁的实例执行，其余实例直接跳过，不重试
+ * <p>
+ * Created on 2026-10-17 17:05
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+public @interface SchedulerLock {
+
+    /**
+     * 任务名，同名任务在集群中互斥
+     *
+     * @return 任务名
+     */
+    String name();
+
+    /**
+     * 最长持有时间，默认 60
+     * <p>
+     * 执行实例宕机时锁最多保持该时长，应大于任务的最长执行时间
+     *
+     * @return 最长持有时间
+     */
+    long lockAtMostFor() default 60;
+
+    /**
+     * 最短持有时间，默认 0
+     * <p>
+     * 任务执行很快时继续保持锁到该时长，防止各实例时钟偏差导致同一周期重复执行
+     *
+     * @return 最短持有时间
+     */
+    long lockAtLeastFor() default 0;
+
+    /**
+     * 持有时间单位，默认 s
+     *
+     * @return 持有时间单位
+     */
+    TimeUnit timeUnit() default TimeUnit.SECONDS;
+}
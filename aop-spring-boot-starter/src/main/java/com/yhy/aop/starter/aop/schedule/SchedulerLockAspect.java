@@ -0,0 +1,55 @@
+package com.yhy.aop.starter.aop.schedule;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 定时任务锁切面
+ * <p>
+ * 未获取到锁的实例直接跳过本次执行，返回 null
+ * <p>
+ * Created on 2026-10-17 17:25
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Slf4j
+@Aspect
+@Component
+public class SchedulerLockAspect {
+    @Autowired(required = false)
+    private SchedulerLockHelper helper;
+
+    /**
+     * 环绕增强
+     *
+     * @param point 切点
+     * @return 方法执行结果
+     * @throws Throwable 可能出现的异常
+     */
+    @Around("@annotation(com.yhy.aop.starter.aop.schedule.SchedulerLock)")
+    public Object around(ProceedingJoinPoint point) throws Throwable {
+        if (null == helper) {
+            return null == point.getArgs() || point.getArgs().length == 0 ? point.proceed() : point.proceed(point.getArgs());
+        }
+        SchedulerLock lock = ((MethodSignature) point.getSignature()).getMethod().getAnnotation(SchedulerLock.class);
+
+        String value = helper.tryLock(lock.name(), lock.lockAtMostFor(), lock.timeUnit());
+        if (null == value) {
+            log.debug("定时任务【{}】正在其他实例执行，跳过本次执行", lock.name());
+            return null;
+        }
+        log.debug("定时任务【{}】获取锁成功，开始执行", lock.name());
+        try {
+            return null == point.getArgs() || point.getArgs().length == 0 ? point.proceed() : point.proceed(point.getArgs());
+        } finally {
+            log.debug("定时任务【{}】执行完成，释放锁结果：【{}】", lock.name(), helper.unlock(lock.name(), value, lock.lockAtLeastFor(), lock.timeUnit()));
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.yhy.aop.starter.aop.schedule;
+
+import com.yhy.aop.starter.aop.lock.LockerHelper;
+import com.yhy.aop.starter.aop.lock.Mode;
+import com.yhy.jakit.util.IPUtils;
+import com.yhy.jakit.util.system.SystemClock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 定时任务锁辅助类
+ * <p>
+ * 基于 {@link LockerHelper} 实现，每次执行使用独立的锁值，执行完成后按最短持有时间延迟释放
+ * <p>
+ * 可通过 {@link #states()} 查看各任务锁的持有情况，便于运维排查
+ * <p>
+ * Created on 2026-10-17 17:15
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Component
+@AutoConfigureAfter(LockerHelper.class)
+@ConditionalOnBean(LockerHelper.class)
+public class SchedulerLockHelper {
+    private static final String KEY_PREFIX = "scheduler-lock:";
+    // 持有者前缀，由本机 ip 和实例标识组成，便于识别持有锁的实例
+    private static final String INSTANCE = IPUtils.localIP() + "/" + UUID.randomUUID();
+
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    @Autowired
+    private LockerHelper lockerHelper;
+
+    /**
+     * 尝试获取任务锁，不重试
+     *
+     * @param name          任务名
+     * @param lockAtMostFor 最长持有时间
+     * @param unit          时间单位
+     * @return 获取成功时返回锁值，用于释放，失败时返回 null
+     * @throws InterruptedException 可能出现的异常
+     */
+    public String tryLock(String name, long lockAtMostFor, TimeUnit unit) throws InterruptedException {
+        Stats stat = stats.computeIfAbsent(name, key -> new Stats());
+        // 每次执行使用独立的锁值，同一线程的下次执行不会重入未到期的锁
+        String value = INSTANCE + ":" + UUID.randomUUID();
+        if (lockerHelper.tryLock(KEY_PREFIX + name, value, Mode.WRITE, lockAtMostFor, unit, 1, 0L, TimeUnit.MILLISECONDS)) {
+            stat.runs.incrementAndGet();
+            stat.lastRunAt = LocalDateTime.now();
+            stat.startedAt = SystemClock.now();
+            return value;
+        }
+        stat.skips.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 释放任务锁
+     * <p>
+     * 执行时长不足最短持有时间时继续保持锁到该时长
+     *
+     * @param name           任务名
+     * @param value          获取锁时返回的锁值
+     * @param lockAtLeastFor 最短持有时间
+     * @param unit           时间单位
+     * @return 是否成功，锁已因超过最长持有时间而过期时返回 false
+     */
+    public boolean unlock(String name, String value, long lockAtLeastFor, TimeUnit unit) {
+        Stats stat = stats.computeIfAbsent(name, key -> new Stats());
+        long elapsed = SystemClock.now() - stat.startedAt;
+        stat.lastDuration = Duration.ofMillis(elapsed);
+        return lockerHelper.unlockAfter(KEY_PREFIX + name, value, unit.toMillis(lockAtLeastFor) - elapsed, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 查询任务锁状态
+     *
+     * @param name 任务名
+     * @return 任务锁状态
+     */
+    public SchedulerLockState state(String name) {
+        Stats stat = stats.get(name);
+        String holder = lockerHelper.holders(KEY_PREFIX + name).keySet().stream().findFirst().orElse(null);
+        SchedulerLockState.SchedulerLockStateBuilder builder = SchedulerLockState.builder()
+            .name(name)
+            // 去掉每次执行的随机部分，只保留实例信息
+            .holder(null == holder ? null : holder.substring(0, Math.max(holder.lastIndexOf(':'), 0)))
+            .lockedFor(lockerHelper.ttl(KEY_PREFIX + name))
+            .leader(null != holder && holder.startsWith(INSTANCE + ":"));
+        if (null != stat) {
+            builder.runs(stat.runs.get()).skips(stat.skips.get()).lastRunAt(stat.lastRunAt).lastDuration(stat.lastDuration);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 查询本实例执行过的所有任务锁状态
+     *
+     * @return 任务锁状态
+     */
+    public List<SchedulerLockState> states() {
+        return stats.keySet().stream().sorted().map(this::state).collect(Collectors.toList());
+    }
+
+    /**
+     * 本实例的执行统计
+     * <p>
+     * 同名任务由同一个调度线程串行触发，字段无需额外同步
+     */
+    private static class Stats {
+        private final AtomicLong runs = new AtomicLong();
+        private final AtomicLong skips = new AtomicLong();
+        private volatile long startedAt;
+        private volatile LocalDateTime lastRunAt;
+        private volatile Duration lastDuration;
+    }
+}
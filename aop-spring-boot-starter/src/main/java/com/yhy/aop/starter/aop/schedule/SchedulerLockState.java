@@ -0,0 +1,67 @@
+package com.yhy.aop.starter.aop.schedule;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * 定时任务锁状态
+ * <p>
+ * 锁的持有情况从 redis 实时读取，执行统计为本实例的数据
+ * <p>
+ * Created on 2026-10-17 17:10
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SchedulerLockState {
+
+    /**
+     * 任务名
+     */
+    private String name;
+
+    /**
+     * 当前持有者，格式为 ip/实例标识，未被持有时为空
+     */
+    private String holder;
+
+    /**
+     * 锁的剩余有效时长
+     */
+    private Duration lockedFor;
+
+    /**
+     * 当前是否由本实例持有
+     */
+    private boolean leader;
+
+    /**
+     * 本实例执行次数
+     */
+    private long runs;
+
+    /**
+     * 本实例因未获取到锁而跳过的次数
+     */
+    private long skips;
+
+    /**
+     * 本实例最近一次执行的开始时间
+     */
+    private LocalDateTime lastRunAt;
+
+    /**
+     * 本实例最近一次执行的耗时
+     */
+    private Duration lastDuration;
+}
@@ -0,0 +1,85 @@
+package com.yhy.aop.starter.aop.semaphore;
+
+import java.lang.annotation.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分布式信号量
+ * <p>
+ * 限制整个集群中同时执行的调用数，{@link com.yhy.aop.starter.aop.lock.Locker} 相当于许可数为 1 的信号量
+ * <p>
+ * Created on 2026-10-17 16:40
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+public @interface Semaphore {
+
+    /**
+     * 键值，信号量标识
+     * <p>
+     * 支持参数占位符
+     * ${parameter}[${obj.field.field}]
+     *
+     * @return 键值
+     */
+    String key();
+
+    /**
+     * 许可总数，即集群中最大并发数
+     *
+     * @return 许可总数
+     */
+    int permits();
+
+    /**
+     * 许可租约时长，默认 30
+     * <p>
+     * 到期后许可自动归还，防止持有者宕机导致许可泄漏，应大于方法的最长执行时间
+     * <p>
+     * 许可不会自动续约，方法执行超过租约时长时许可会被回收并可能发放给其他调用方，方法执行完后输出错误日志
+     *
+     * @return 租约时长
+     */
+    long lease() default 30;
+
+    /**
+     * 许可租约时长单位，默认 s
+     *
+     * @return 租约时长单位
+     */
+    TimeUnit leaseUnit() default TimeUnit.SECONDS;
+
+    /**
+     * 重试次数，默认 1
+     *
+     * @return 重试次数
+     */
+    int retry() default 1;
+
+    /**
+     * 重试时间间隔，默认 200ms
+     *
+     * @return 重试时间间隔
+     */
+    long interval() default 200;
+
+    /**
+     * 重试时间单位，默认 ms
+     *
+     * @return 重试时间单位
+     */
+    TimeUnit intervalUnit() default TimeUnit.MILLISECONDS;
+
+    /**
+     * 错误异常信息
+     *
+     * @return 异常信息
+     */
+    String message() default "服务器繁忙，请稍候再试";
+}
@@ -0,0 +1,29 @@
+package com.yhy.aop.starter.aop.semaphore;
+
+/**
+ * 分布式信号量获取异常
+ * <p>
+ * Created on 2026-10-17 16:42
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class SemaphoreAcquireException extends RuntimeException {
+
+    /**
+     * 分布式信号量异常
+     */
+    public SemaphoreAcquireException() {
+        this("服务器繁忙，稍候再试");
+    }
+
+    /**
+     * 分布式信号量异常
+     *
+     * @param message 异常信息
+     */
+    public SemaphoreAcquireException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,67 @@
+package com.yhy.aop.starter.aop.semaphore;
+
+import com.yhy.jakit.util.PlaceholderTemplate;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+
+/**
+ * 分布式信号量切面
+ * <p>
+ * Created on 2026-10-17 16:50
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Slf4j
+@Aspect
+@Component
+public class SemaphoreAspect {
+    @Autowired(required = false)
+    private SemaphoreHelper helper;
+
+    /**
+     * 环绕增强
+     *
+     * @param point 切点
+     * @return 方法执行结果
+     * @throws Throwable 可能出现的异常
+     */
+    @Around("@annotation(com.yhy.aop.starter.aop.semaphore.Semaphore)")
+    public Object around(ProceedingJoinPoint point) throws Throwable {
+        if (null == helper) {
+            return null == point.getArgs() || point.getArgs().length == 0 ? point.proceed() : point.proceed(point.getArgs());
+        }
+        MethodSignature signature = (MethodSignature) point.getSignature();
+        Method method = signature.getMethod();
+        Semaphore semaphore = method.getAnnotation(Semaphore.class);
+
+        // 从方法参数中填充 key 占位符，模板按方法预编译
+        String key = PlaceholderTemplate.of(method, semaphore.key(), signature.getParameterNames()).resolve(point.getArgs());
+
+        log.debug("申请信号量【{}】许可...", key);
+        String permit = helper.tryAcquire(key, semaphore.permits(), semaphore.lease(), semaphore.leaseUnit(), semaphore.retry(), semaphore.interval(), semaphore.intervalUnit());
+        if (null == permit) {
+            log.error("获取信号量【{}】许可失败", key);
+            throw new SemaphoreAcquireException(semaphore.message());
+        }
+        log.debug("获取信号量【{}】许可成功！", key);
+        try {
+            return null == point.getArgs() || point.getArgs().length == 0 ? point.proceed() : point.proceed(point.getArgs());
+        } finally {
+            // 方法执行完后归还许可，归还失败说明执行期间租约已到期，许可可能已发放给其他调用方
+            if (helper.release(key, permit)) {
+                log.debug("操作执行完成后归还信号量【{}】许可成功。", key);
+            } else {
+                log.error("信号量【{}】许可在执行期间租约已到期被回收，并发数可能已超出许可总数，请增大租约时长【{} {}】", key, semaphore.lease(), semaphore.leaseUnit());
+            }
+        }
+    }
+}
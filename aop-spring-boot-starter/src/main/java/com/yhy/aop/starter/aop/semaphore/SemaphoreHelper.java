@@ -0,0 +1,102 @@
+package com.yhy.aop.starter.aop.semaphore;
+
+import com.yhy.aop.starter.aop.lock.LockerHelper;
+import com.yhy.jakit.starter.helper.RedisHelper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * redis 分布式信号量实现
+ * <p>
+ * 许可表为 sorted set，每个许可以租约到期时间为 score，申请时先清理已到期的许可，持有者宕机后许可最多一个租约时长即自动归还
+ * <p>
+ * key 为 {@link LockerHelper} 的前缀加上 semaphore:，与同名的锁互不影响
+ * <p>
+ * 许可用完时复用锁的本地排队，在独立的通道上发布归还通知唤醒等待者，重试间隔仅作为租约到期等未收到通知情况的兜底
+ * <p>
+ * 许可不会自动续约，方法执行超过租约时长时许可会被回收并可能发放给其他调用方，此时归还失败
+ * <p>
+ * Created on 2026-10-17 16:45
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Component
+@AutoConfigureAfter(LockerHelper.class)
+@ConditionalOnBean(LockerHelper.class)
+public class SemaphoreHelper {
+    private static final String SCRIPT_ACQUIRE = "semaphore_acquire";
+    // 与锁名区分开，避免同名的锁和信号量类型冲突
+    private static final String KEY_PREFIX = "semaphore:";
+
+    @Autowired
+    private RedisHelper redisHelper;
+    @Autowired
+    private LockerHelper lockerHelper;
+
+    /**
+     * 申请一个许可
+     * <p>
+     * 许可用完时等待归还通知后立即重试，不再按固定间隔轮询
+     *
+     * @param key          信号量标识
+     * @param permits      许可总数
+     * @param lease        租约时长
+     * @param leaseUnit    租约时长单位
+     * @param retry        重试次数
+     * @param interval     重试间隔时间
+     * @param intervalUnit 重试间隔时间单位
+     * @return 申请成功时返回许可标识，用于归还，失败时返回 null
+     * @throws InterruptedException 可能出现的异常
+     */
+    public String tryAcquire(String key, int permits, long lease, TimeUnit leaseUnit, int retry, long interval, TimeUnit intervalUnit) throws InterruptedException {
+        String redisKey = redisKey(key);
+        String permit = UUID.randomUUID().toString();
+        String leaseMillis = Math.max(leaseUnit.toMillis(lease), 1L) + "";
+        boolean acquired = lockerHelper.awaitRelease(redisKey, Math.max(retry, 1), interval, intervalUnit, () -> {
+            Long result = redisHelper.script(SCRIPT_ACQUIRE, Long.class, Collections.singletonList(redisKey), permits + "", leaseMillis, permit);
+            return null != result && result > 0L;
+        });
+        return acquired ? permit : null;
+    }
+
+    /**
+     * 归还许可
+     *
+     * @param key    信号量标识
+     * @param permit 申请时返回的许可标识
+     * @return 是否归还成功，许可已因租约到期被回收时返回 false
+     */
+    public boolean release(String key, String permit) {
+        String redisKey = redisKey(key);
+        Long removed = redisHelper.template().opsForZSet().remove(redisKey, permit);
+        if (null != removed && removed > 0L) {
+            // 唤醒等待许可的线程
+            lockerHelper.publishRelease(redisKey);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 当前已被占用的许可数，包含租约已到期但尚未清理的许可
+     *
+     * @param key 信号量标识
+     * @return 已占用的许可数
+     */
+    public long used(String key) {
+        Long count = redisHelper.template().opsForZSet().zCard(redisKey(key));
+        return null == count ? 0L : count;
+    }
+
+    private String redisKey(String key) {
+        return lockerHelper.withPrefix(KEY_PREFIX + key);
+    }
+}
@@ -81,6 +81,11 @@ public class TraceAspect {
             if (StringUtils.hasText(spanChain)) {
                 response.setHeader(Define.SPAN_CHAIN, spanChain);
             }
+
+            String traceparent = Trace.get(Define.TRACEPARENT);
+            if (StringUtils.hasText(traceparent) && !response.containsHeader(Define.TRACEPARENT)) {
+                response.setHeader(Define.TRACEPARENT, traceparent);
+            }
         }
         return returned;
     }
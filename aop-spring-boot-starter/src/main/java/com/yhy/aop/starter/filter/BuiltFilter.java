@@ -1,5 +1,6 @@
 package com.yhy.aop.starter.filter;
 
+import com.yhy.jakit.util.system.ClockFormatter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -9,8 +10,6 @@ import javax.servlet.annotation.WebFilter;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.regex.Pattern;
 
 /**
@@ -25,9 +24,12 @@ import java.util.regex.Pattern;
 @Component
 @WebFilter(value = "/", filterName = "internal-built-filter")
 public class BuiltFilter implements Filter {
-    private static final SimpleDateFormat pattern = new SimpleDateFormat("yyyy-MM-dd_HH:mm:ss");
+    private static final String PATTERN = "yyyy-MM-dd_HH:mm:ss";
+    private static final Pattern PLACEHOLDER = Pattern.compile("^\\{[\\w\\-]+}$");
 
-    private Date startAt;
+    // 启动后不再变化，提前计算好响应头的值
+    private String buildVersion;
+    private String start;
 
     @Value("${spring.application.name:}")
     private String name;
@@ -37,7 +39,11 @@ public class BuiltFilter implements Filter {
 
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {
-        startAt = new Date();
+        start = ClockFormatter.of(PATTERN).now();
+        if (!StringUtils.hasText(version) || PLACEHOLDER.matcher(version).matches()) {
+            version = start + "_1.0.0.dev";
+        }
+        buildVersion = name + "__" + version;
     }
 
     @Override
@@ -45,14 +51,10 @@ public class BuiltFilter implements Filter {
         HttpServletRequest req = (HttpServletRequest) request;
         HttpServletResponse res = (HttpServletResponse) response;
 
-        if (!StringUtils.hasText(version) || Pattern.matches("^\\{[\\w\\-]+}$", version)) {
-            version = pattern.format(new Date()) + "_1.0.0.dev";
-        }
-
         // 嵌入版本信息
-        res.setHeader("RP-Build-Version", name + "__" + version);
-        res.setHeader("RP-Start", pattern.format(startAt));
+        res.setHeader("RP-Build-Version", buildVersion);
+        res.setHeader("RP-Start", start);
 
         chain.doFilter(req, res);
     }
-}
\ No newline at end of file
+}
@@ -1,12 +1,12 @@
 package com.yhy.aop.starter.filter;
 
-import com.yhy.jakit.util.HttpUtils;
-import com.yhy.jakit.util.RandUtils;
+import com.yhy.jakit.starter.filter.PathRules;
 import com.yhy.jakit.util.cst.Define;
 import com.yhy.jakit.util.internal.Trace;
+import com.yhy.jakit.util.internal.TraceContext;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StringUtils;
+import org.springframework.util.ClassUtils;
 
 import javax.servlet.*;
 import javax.servlet.annotation.WebFilter;
@@ -22,6 +22,10 @@ import java.io.IOException;
  * 响应时得在 AOP 中添加，否则无效
  * <p>
  * 参考 {@link com.yhy.aop.starter.aop.trace.TraceAspect}
+ * <p>
+ * 可通过 excludes 参数配置排除链接，规则参考 {@link PathRules}
+ * <p>
+ * 优先使用上游的 W3C traceparent，没有时兼容上游的 Trace-Id，都没有时开始新的追踪
  *
  * @author 颜洪毅
  * @version 1.0.0
@@ -30,9 +34,22 @@ import java.io.IOException;
 @Component
 @WebFilter(value = "/", filterName = "internal-trace-filter")
 public class TraceFilter implements Filter {
+    private static final String LOGBACK_CONTEXT = "ch.qos.logback.classic.LoggerContext";
+
     @Value("${spring.application.name:}")
     private String appName;
 
+    private PathRules excludes = PathRules.EMPTY;
+    // 非 logback 实现时无法在输出日志时同步 MDC，只能立即同步
+    private boolean lazyMdc;
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        excludes = PathRules.parse(filterConfig.getInitParameter("excludes"));
+        // 未引入 logback 时不能加载 TraceMdcFilter，通过独立的类延迟引用
+        lazyMdc = ClassUtils.isPresent(LOGBACK_CONTEXT, TraceFilter.class.getClassLoader()) && LogbackMdc.install();
+    }
+
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
         HttpServletRequest req = (HttpServletRequest) request;
@@ -41,20 +58,35 @@ public class TraceFilter implements Filter {
         // 先清空吧
         Trace.clear();
 
-        // 加入 TraceID & SpanID & SpanChain
-        String traceId = HttpUtils.getHeader(req, Define.TRACE_ID);
-        String spanId = StringUtils.hasText(appName) ? appName : RandUtils.getString(6);
-        String spanChain = HttpUtils.getHeader(req, Define.SPAN_CHAIN);
-        traceId = StringUtils.hasText(traceId) ? traceId : RandUtils.getString(16);
-        spanChain = StringUtils.hasText(spanChain) ? spanChain + "." + spanId : spanId;
+        if (excludes.matches(req)) {
+            chain.doFilter(req, res);
+            return;
+        }
 
-        Trace.put(Define.TRACE_ID, traceId);
-        Trace.put(Define.SPAN_ID, spanId);
-        Trace.put(Define.SPAN_CHAIN, spanChain);
+        // 加入 TraceID & SpanID & SpanChain，容器的 getHeader 本身忽略大小写
+        TraceContext parent = TraceContext.parse(req.getHeader(Define.TRACEPARENT));
+        if (null == parent) {
+            parent = TraceContext.ofTraceId(req.getHeader(Define.TRACE_ID));
+        }
+        String spanChain = req.getHeader(Define.SPAN_CHAIN);
+        Trace.set(null != parent ? parent.child(spanChain, appName) : TraceContext.generate(spanChain, appName));
+        if (!lazyMdc) {
+            Trace.syncMdc();
+        }
 
         // 响应时得在 AOP 中添加，否则无效
         // 参考 TraceAspect
 
         chain.doFilter(req, res);
     }
+
+    /**
+     * 只在 logback 存在时才加载
+     */
+    private static class LogbackMdc {
+
+        private static boolean install() {
+            return com.yhy.jakit.util.logback.TraceMdcFilter.install();
+        }
+    }
 }
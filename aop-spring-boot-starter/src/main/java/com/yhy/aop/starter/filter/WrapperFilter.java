@@ -1,17 +1,22 @@
 package com.yhy.aop.starter.filter;
 
+import com.yhy.jakit.starter.filter.PathRules;
 import com.yhy.jakit.starter.wrapper.RequestWrapper;
+import com.yhy.jakit.starter.wrapper.ResponseWrapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import javax.servlet.*;
 import javax.servlet.annotation.WebFilter;
+import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
 
 /**
  * 对 ServletRequest 进行包装，达到 RequestBody 多次读取的目的
  * <p>
- * 只提供组件，使用时需要在具体项目 FilterRegistrationBean 中配置
+ * 同时对 ServletResponse 进行包装，需要时可留存 ResponseBody，请求完成（包括异步请求）后通知留存的使用方
+ * <p>
+ * 只提供组件，使用时需要在具体项目 FilterRegistrationBean 中配置，可通过 excludes 参数配置排除链接，规则参考 {@link PathRules}
  * <p>
  * Created on 2022-07-26 16:49
  *
@@ -23,14 +28,71 @@ import java.io.IOException;
 @Component
 @WebFilter(value = "/", filterName = "internal-wrapper-filter")
 public class WrapperFilter implements Filter {
+    private PathRules excludes = PathRules.EMPTY;
 
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {
+        excludes = PathRules.parse(filterConfig.getInitParameter("excludes"));
         log.info("ComponentWrapperFilter has been init.");
     }
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
-        chain.doFilter(RequestWrapper.wrap(request), response);
+        if (excludes.matches((HttpServletRequest) request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        RequestWrapper wrappedRequest = RequestWrapper.wrap(request);
+        ResponseWrapper wrapped = ResponseWrapper.wrap(response);
+        try {
+            chain.doFilter(wrappedRequest, wrapped);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // 异步请求在异步处理结束后才完成响应
+                request.getAsyncContext().addListener(new CompletingListener(wrappedRequest, wrapped));
+            } else {
+                wrapped.complete();
+                wrappedRequest.release();
+            }
+        }
+    }
+
+    /**
+     * 异步请求结束后完成响应
+     */
+    private static class CompletingListener implements AsyncListener {
+        private final RequestWrapper request;
+        private final ResponseWrapper response;
+
+        CompletingListener(RequestWrapper request, ResponseWrapper response) {
+            this.request = request;
+            this.response = response;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            complete();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            complete();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            complete();
+        }
+
+        private void complete() {
+            response.complete();
+            request.release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // 再次开始异步处理时重新注册
+            event.getAsyncContext().addListener(this);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+-- 重设锁的过期时间，只有持有者本人才能修改，用于执行完成后继续保持锁一段时间
+
+-- 接收并初始化一些参数
+local key = KEYS[1] -- 锁名
+local owner = ARGV[1] -- 持有者
+local ttl = tonumber(ARGV[2]) -- 剩余保持时长（ms）
+
+if (redis.call('hexists', key, owner) == 0) then
+    -- 锁已过期或已被其他持有者获取
+    return 0
+end
+
+redis.call('pexpire', key, ttl)
+
+return 1
\ No newline at end of file
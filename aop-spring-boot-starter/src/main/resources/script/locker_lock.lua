@@ -0,0 +1,35 @@
+-- 申请锁，支持可重入、读写模式以及多个锁一次性申请
+-- 锁以 hash 存储：mode 字段为当前模式，其余字段为持有者及其重入次数
+-- 多个锁时先全部校验再全部获取，任一失败时不获取任何锁
+
+-- 接收并初始化一些参数
+-- KEYS[i] 锁名
+local owner = ARGV[1] -- 持有者
+local lease = tonumber(ARGV[2]) -- 租约时长（ms）
+local mode = ARGV[3] -- 申请的模式，read 或 write
+
+for i = 1, #KEYS do
+    local current = redis.call('hget', KEYS[i], 'mode')
+    -- 已持有的写锁可重入，也可在持有写锁时申请读锁；读锁之间可共享
+    local available = (not current) or (current == 'write' and redis.call('hexists', KEYS[i], owner) == 1) or (current == 'read' and mode == 'read')
+    if (not available) then
+        -- 返回被占用的锁的序号，从 1 开始
+        return i
+    end
+end
+
+for i = 1, #KEYS do
+    if (redis.call('hsetnx', KEYS[i], 'mode', mode) == 1) then
+        -- 无人持有，直接获取
+        redis.call('hset', KEYS[i], owner, 1)
+        redis.call('pexpire', KEYS[i], lease)
+    else
+        redis.call('hincrby', KEYS[i], owner, 1)
+        -- 多个持有者的租约不同，只延长不缩短
+        if (redis.call('pttl', KEYS[i]) < lease) then
+            redis.call('pexpire', KEYS[i], lease)
+        end
+    end
+end
+
+return 0
\ No newline at end of file
@@ -0,0 +1,23 @@
+-- 批量续约，只续约仍由持有者持有的锁
+
+-- 接收并初始化一些参数
+-- KEYS[i] 锁名
+-- ARGV[i] 持有者
+-- ARGV[#KEYS + i] 续约时长（ms）
+local count = #KEYS
+
+-- 逐个返回是否续约成功，失败说明锁已丢失
+local result = {}
+for i = 1, count do
+    if (redis.call('hexists', KEYS[i], ARGV[i]) == 1) then
+        -- 多个持有者的租约不同，只延长不缩短
+        if (redis.call('pttl', KEYS[i]) < tonumber(ARGV[count + i])) then
+            redis.call('pexpire', KEYS[i], ARGV[count + i])
+        end
+        result[i] = 1
+    else
+        result[i] = 0
+    end
+end
+
+return result
\ No newline at end of file
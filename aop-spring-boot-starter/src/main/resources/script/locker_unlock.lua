@@ -0,0 +1,26 @@
+-- 解锁，只有持有者本人才能释放，重入多次时需释放同样次数，支持多个锁一次性释放
+
+-- 接收并初始化一些参数
+-- KEYS[i] 锁名
+local owner = ARGV[1] -- 持有者
+local channel = ARGV[2] -- 释放通知通道前缀，完整通道为前缀 + 锁名
+
+-- 返回成功释放的锁的数量
+local released = 0
+for i = 1, #KEYS do
+    -- 锁已过期或已被其他持有者获取时跳过
+    if (redis.call('hexists', KEYS[i], owner) == 1) then
+        released = released + 1
+        if (redis.call('hincrby', KEYS[i], owner, -1) <= 0) then
+            redis.call('hdel', KEYS[i], owner)
+            -- 只剩 mode 字段时说明已无持有者
+            if (redis.call('hlen', KEYS[i]) <= 1) then
+                redis.call('del', KEYS[i])
+                -- 通知所有等待者
+                redis.call('publish', channel .. KEYS[i], '')
+            end
+        end
+    end
+end
+
+return released
\ No newline at end of file
@@ -7,7 +7,10 @@ local capacity = tonumber(ARGV[1]) -- 令牌桶容量
 local period = tonumber(ARGV[2]) -- 规定一定数量令牌的单位时间，同时也是生成一批令牌的单位时间（s）
 local quota = tonumber(ARGV[3]) -- 单位时间内生成令牌的数量
 local quantity = tonumber(ARGV[4]) or 1 -- 每次需要的令牌数，默认为 1
-local timestamp = tonumber(redis.call('time')[1]) -- 当前时间戳（s）
+local minimum = tonumber(ARGV[5]) or quantity -- 最少需要的令牌数，租约模式下允许不足 quantity 时部分发放，默认为 quantity
+local time = redis.call('time')
+local timestamp = tonumber(time[1]) -- 当前时间戳（s）
+local fraction = tonumber(time[2]) -- 当前秒内已过去的时间（μs）
 
 -- 判断令牌桶是否存在
 if (redis.call('exists', key) == 0) then
@@ -31,18 +34,21 @@ end
 
 local result = {}
 local tokens = tonumber(redis.call('hget', key, 'tokens'))
-if (tokens < quantity) then
-    -- 令牌数量不足，返回0表示已超过限流，同时返回剩余令牌数
-    result = {0, tokens}
+if (tokens < minimum) then
+    -- 令牌数量不足，返回0表示已超过限流，同时返回剩余令牌数和补足所需令牌需等待的时间（μs）
+    -- 令牌只在整秒时补充，等待时间向上取整到补足令牌的那一秒，避免提前醒来后无效重试
+    result = {0, tokens, math.ceil((minimum - tokens) / quota * period) * 1000000 - fraction}
 else
     -- 令牌充足
+    -- 本次发放的令牌数，不超过 quantity
+    local granted = math.min(quantity, math.floor(tokens))
     -- 重置剩余令牌数
-    tokens = tokens - quantity
+    tokens = tokens - granted
     redis.call('hmset', key, 'tokens', tokens, 'timestamp', timestamp)
     -- 设置自动过期失效
     redis.call('expire', key, period)
-    -- 返回当前所需要的令牌数量，同时返回剩余令牌数
-    result = {quantity, tokens}
+    -- 返回本次发放的令牌数量，同时返回剩余令牌数
+    result = {granted, tokens, 0}
 end
 
 return result
\ No newline at end of file
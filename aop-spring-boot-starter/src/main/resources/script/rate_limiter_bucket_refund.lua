@@ -0,0 +1,17 @@
+-- 归还令牌，租约过期后将未使用的令牌退回令牌桶
+
+-- 接收并初始化一些参数
+local key = KEYS[1] -- 令牌桶标识
+local capacity = tonumber(ARGV[1]) -- 令牌桶容量
+local quantity = tonumber(ARGV[2]) -- 归还的令牌数
+
+-- 令牌桶已过期失效，无需归还
+if (redis.call('exists', key) == 0) then
+    return 0
+end
+
+-- 归还后不超过令牌桶容量
+local tokens = math.min(tonumber(redis.call('hget', key, 'tokens')) + quantity, capacity)
+redis.call('hset', key, 'tokens', tokens)
+
+return tokens
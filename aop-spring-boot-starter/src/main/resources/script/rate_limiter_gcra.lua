@@ -0,0 +1,37 @@
+-- Redis 4.0+ 才支持该命令，https://developer.aliyun.com/article/195914
+redis.replicate_commands()
+
+-- GCRA（通用信元速率算法）
+-- 只保存一个整数键：理论到达时间 TAT（μs），每次调用最多一次 GET 和一次 SET
+
+-- 接收并初始化一些参数
+local key = KEYS[1] -- 限流标识
+local capacity = tonumber(ARGV[1]) -- 突发容量
+local period = tonumber(ARGV[2]) -- 规定一定数量令牌的单位时间（μs）
+local quota = tonumber(ARGV[3]) -- 单位时间内生成令牌的数量
+local quantity = tonumber(ARGV[4]) or 1 -- 每次需要的令牌数，默认为 1
+local time = redis.call('time')
+local now = tonumber(time[1]) * 1000000 + tonumber(time[2]) -- 当前时间戳（μs）
+
+-- 生成一个令牌的间隔，以及允许的突发容差
+local interval = period / quota
+local tolerance = interval * capacity
+
+-- 理论到达时间，不存在或已落后于当前时间时从当前时间算起
+local tat = tonumber(redis.call('get', key)) or now
+if (tat < now) then
+    tat = now
+end
+
+local newTat = tat + interval * quantity
+local diff = now - (newTat - tolerance)
+if (diff < 0) then
+    -- 超过限流，返回0表示已超过限流，同时返回剩余令牌数和需等待的时间（μs）
+    return {0, 0, math.ceil(-diff)}
+end
+
+-- 更新理论到达时间，到期即自动失效（ms）
+redis.call('set', key, string.format('%d', math.ceil(newTat)), 'px', math.ceil((newTat - now) / 1000))
+
+-- 返回当前所需要的令牌数量，同时返回剩余令牌数和需等待的时间（μs）
+return {quantity, math.floor(diff / interval), 0}
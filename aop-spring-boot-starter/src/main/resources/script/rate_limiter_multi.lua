@@ -0,0 +1,67 @@
+-- Redis 4.0+ 才支持该命令，https://developer.aliyun.com/article/195914
+redis.replicate_commands()
+
+-- 多个限流器原子校验并扣减
+-- 先依次校验所有限流器，全部满足后才统一扣减，任一不满足时不做任何修改
+-- 每个 key 对应 5 个参数：算法（1 令牌桶，2 GCRA）、容量、单位时间（令牌桶为 s，GCRA 为 μs）、单位时间内生成令牌的数量、每次需要的令牌数
+
+local time = redis.call('time')
+local seconds = tonumber(time[1]) -- 当前时间戳（s）
+local fraction = tonumber(time[2]) -- 当前秒内已过去的时间（μs）
+local micros = seconds * 1000000 + fraction -- 当前时间戳（μs）
+
+local states = {}
+for i, key in ipairs(KEYS) do
+    local base = (i - 1) * 5
+    local algorithm = tonumber(ARGV[base + 1])
+    local capacity = tonumber(ARGV[base + 2])
+    local period = tonumber(ARGV[base + 3])
+    local quota = tonumber(ARGV[base + 4])
+    local quantity = tonumber(ARGV[base + 5]) or 1
+
+    if (algorithm == 1) then
+        -- 令牌桶，与 rate_limiter_bucket.lua 的存储结构保持一致
+        local bucket = redis.call('hmget', key, 'tokens', 'timestamp')
+        local tokens = tonumber(bucket[1])
+        if (tokens == nil) then
+            tokens = capacity
+        else
+            local supply = ((seconds - tonumber(bucket[2])) / period) * quota
+            if (supply > 0) then
+                tokens = math.min(tokens + supply, capacity)
+            end
+        end
+        if (tokens < quantity) then
+            -- 返回0表示已超过限流，同时返回被拒绝的限流器序号和需等待的时间（μs）
+            -- 令牌只在整秒时补充，等待时间向上取整到补足令牌的那一秒
+            return {0, i, math.ceil((quantity - tokens) / quota * period) * 1000000 - fraction}
+        end
+        states[i] = tokens - quantity
+    else
+        -- GCRA，与 rate_limiter_gcra.lua 的存储结构保持一致
+        local interval = period / quota
+        local tat = tonumber(redis.call('get', key)) or micros
+        if (tat < micros) then
+            tat = micros
+        end
+        local newTat = tat + interval * quantity
+        local diff = micros - (newTat - interval * capacity)
+        if (diff < 0) then
+            return {0, i, math.ceil(-diff)}
+        end
+        states[i] = newTat
+    end
+end
+
+-- 全部满足，统一扣减
+for i, key in ipairs(KEYS) do
+    local base = (i - 1) * 5
+    if (tonumber(ARGV[base + 1]) == 1) then
+        redis.call('hmset', key, 'tokens', states[i], 'timestamp', seconds)
+        redis.call('expire', key, tonumber(ARGV[base + 3]))
+    else
+        redis.call('set', key, string.format('%d', math.ceil(states[i])), 'px', math.ceil((states[i] - micros) / 1000))
+    end
+end
+
+return {1, 0, 0}
@@ -0,0 +1,29 @@
+-- Redis 4.0+ 才支持该命令，https://developer.aliyun.com/article/195914
+redis.replicate_commands()
+
+-- 申请信号量许可
+-- 许可表以 sorted set 存储：member 为许可标识，score 为租约到期时间（ms）
+
+-- 接收并初始化一些参数
+local key = KEYS[1] -- 信号量标识
+local permits = tonumber(ARGV[1]) -- 许可总数
+local lease = tonumber(ARGV[2]) -- 租约时长（ms）
+local permit = ARGV[3] -- 本次申请的许可标识
+local time = redis.call('time')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) -- 当前时间戳（ms）
+
+-- 清理租约已到期的许可，持有者宕机时许可也能自动归还
+redis.call('zremrangebyscore', key, '-inf', now)
+
+if (redis.call('zcard', key) >= permits) then
+    -- 许可已用完
+    return 0
+end
+
+redis.call('zadd', key, now + lease, permit)
+-- 许可表本身也设置过期时间，只延长不缩短
+if (redis.call('pttl', key) < lease) then
+    redis.call('pexpire', key, lease)
+end
+
+return 1
\ No newline at end of file
@@ -0,0 +1,282 @@
+package com.yhy.jakit.starter.filter;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.util.StringUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * 预编译的路径规则，用于拦截器排除链接
+ * <p>
+ * 规则格式为 [请求方法] 路径，如 /static/**、GET /api/public/*、GET|DELETE /**，不指定请求方法时匹配所有请求方法
+ * <p>
+ * 路径支持 ant 风格的 ?、*、** 和 {变量}，与 {@link org.springframework.util.AntPathMatcher} 一致
+ * <p>
+ * 所有规则在创建时按路径段编译为一棵前缀树，匹配时沿请求路径逐段查找，不再为每条规则单独匹配，也不再每次请求都创建匹配器
+ * <p>
+ * Created on 2026-10-17 20:40
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class PathRules {
+    /**
+     * 空规则，不匹配任何请求
+     */
+    public static final PathRules EMPTY = new PathRules(new Node(), 0);
+
+    // 匹配所有请求方法
+    private static final int ALL_METHODS = -1;
+    private static final char SEPARATOR = '/';
+    private static final String SINGLE = "*";
+    private static final String DEEP = "**";
+
+    private final Node root;
+    private final int size;
+
+    private PathRules(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * 解析以 , 分隔的规则
+     *
+     * @param rules 规则
+     * @return 编译后的规则
+     */
+    public static PathRules parse(String rules) {
+        return StringUtils.hasText(rules) ? compile(Arrays.asList(rules.split(","))) : EMPTY;
+    }
+
+    /**
+     * 编译规则
+     *
+     * @param rules 规则
+     * @return 编译后的规则
+     */
+    public static PathRules compile(Collection<String> rules) {
+        if (null == rules || rules.isEmpty()) {
+            return EMPTY;
+        }
+        Node root = new Node();
+        int size = 0;
+        for (String rule : rules) {
+            if (!StringUtils.hasText(rule)) {
+                continue;
+            }
+            add(root, rule.trim());
+            size++;
+        }
+        return size == 0 ? EMPTY : new PathRules(root, size);
+    }
+
+    /**
+     * 请求是否匹配任一规则
+     *
+     * @param request 请求
+     * @return 是否匹配
+     */
+    public boolean matches(HttpServletRequest request) {
+        if (size == 0) {
+            return false;
+        }
+        String path = request.getServletPath();
+        String pathInfo = request.getPathInfo();
+        return matches(request.getMethod(), null == pathInfo ? path : path + pathInfo);
+    }
+
+    /**
+     * 请求方法和路径是否匹配任一规则
+     *
+     * @param method 请求方法，未知的请求方法只匹配不限请求方法的规则
+     * @param path   请求路径
+     * @return 是否匹配
+     */
+    public boolean matches(String method, String path) {
+        if (size == 0 || null == path) {
+            return false;
+        }
+        return match(root, path, 0, methodBit(method));
+    }
+
+    /**
+     * 规则数量
+     *
+     * @return 规则数量
+     */
+    public int size() {
+        return size;
+    }
+
+    private static void add(Node root, String rule) {
+        int methods = ALL_METHODS;
+        String pattern = rule;
+        int blank = rule.indexOf(' ');
+        if (blank > 0) {
+            methods = 0;
+            for (String method : rule.substring(0, blank).split("\\|")) {
+                HttpMethod resolved = HttpMethod.resolve(method.trim().toUpperCase(Locale.ROOT));
+                if (null == resolved) {
+                    throw new IllegalArgumentException("Unknown http method in path rule: " + rule);
+                }
+                methods |= 1 << resolved.ordinal();
+            }
+            pattern = rule.substring(blank + 1).trim();
+        }
+        Node node = root;
+        for (String segment : pattern.split(String.valueOf(SEPARATOR))) {
+            if (!segment.isEmpty()) {
+                node = node.child(segment);
+            }
+        }
+        node.methods |= methods;
+    }
+
+    private static int methodBit(String method) {
+        HttpMethod resolved = null == method ? null : HttpMethod.resolve(method);
+        return null == resolved ? 0 : 1 << resolved.ordinal();
+    }
+
+    private static boolean match(Node node, String path, int pos, int bit) {
+        int length = path.length();
+        // 与 AntPathMatcher 一致，忽略空的路径段
+        while (pos < length && path.charAt(pos) == SEPARATOR) {
+            pos++;
+        }
+        if (pos == length) {
+            // ** 可以匹配零个路径段
+            return node.accepts(bit) || null != node.deep && match(node.deep, path, pos, bit);
+        }
+        int end = path.indexOf(SEPARATOR, pos);
+        if (end < 0) {
+            end = length;
+        }
+        if (null != node.literals) {
+            Node next = node.literals.get(path.substring(pos, end));
+            if (null != next && match(next, path, end, bit)) {
+                return true;
+            }
+        }
+        if (null != node.wildcards) {
+            String segment = path.substring(pos, end);
+            for (Wildcard wildcard : node.wildcards) {
+                if (wildcard.pattern.matcher(segment).matches() && match(wildcard.node, path, end, bit)) {
+                    return true;
+                }
+            }
+        }
+        if (null != node.single && match(node.single, path, end, bit)) {
+            return true;
+        }
+        if (null != node.deep) {
+            // ** 依次尝试匹配零个或多个路径段
+            for (int next = pos; next <= length; ) {
+                if (match(node.deep, path, next, bit)) {
+                    return true;
+                }
+                int separator = path.indexOf(SEPARATOR, next);
+                next = separator >= 0 ? separator + 1 : next < length ? length : length + 1;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 前缀树节点，每个节点对应一个路径段
+     */
+    private static final class Node {
+        // 完全匹配的路径段
+        private Map<String, Node> literals;
+        // 含 ? * {变量} 的路径段
+        private List<Wildcard> wildcards;
+        // * 或 {变量}
+        private Node single;
+        // **
+        private Node deep;
+        // 规则在此结束时可匹配的请求方法
+        private int methods;
+
+        private boolean accepts(int bit) {
+            return methods == ALL_METHODS || (methods & bit) != 0;
+        }
+
+        private Node child(String segment) {
+            if (DEEP.equals(segment)) {
+                return null == deep ? deep = new Node() : deep;
+            }
+            if (SINGLE.equals(segment) || isVariable(segment)) {
+                return null == single ? single = new Node() : single;
+            }
+            if (segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0 || segment.indexOf('{') >= 0) {
+                if (null == wildcards) {
+                    wildcards = new ArrayList<>(1);
+                }
+                for (Wildcard wildcard : wildcards) {
+                    if (wildcard.segment.equals(segment)) {
+                        return wildcard.node;
+                    }
+                }
+                Wildcard wildcard = new Wildcard(segment);
+                wildcards.add(wildcard);
+                return wildcard.node;
+            }
+            if (null == literals) {
+                literals = new HashMap<>();
+            }
+            return literals.computeIfAbsent(segment, key -> new Node());
+        }
+
+        private static boolean isVariable(String segment) {
+            return segment.length() > 2 && segment.charAt(0) == '{' && segment.indexOf('}') == segment.length() - 1;
+        }
+    }
+
+    /**
+     * 含通配符的路径段
+     */
+    private static final class Wildcard {
+        private final String segment;
+        private final Pattern pattern;
+        private final Node node = new Node();
+
+        private Wildcard(String segment) {
+            this.segment = segment;
+            this.pattern = Pattern.compile(toRegex(segment));
+        }
+
+        private static String toRegex(String segment) {
+            StringBuilder sb = new StringBuilder();
+            int literal = 0;
+            for (int i = 0; i < segment.length(); i++) {
+                char c = segment.charAt(i);
+                if (c != '*' && c != '?' && c != '{') {
+                    continue;
+                }
+                if (i > literal) {
+                    sb.append(Pattern.quote(segment.substring(literal, i)));
+                }
+                if (c == '{') {
+                    int close = segment.indexOf('}', i);
+                    if (close < 0) {
+                        // 不完整的变量按普通字符处理
+                        sb.append(Pattern.quote(segment.substring(i)));
+                        return sb.toString();
+                    }
+                    sb.append(".*");
+                    i = close;
+                } else {
+                    sb.append(c == '*' ? ".*" : ".");
+                }
+                literal = i + 1;
+            }
+            if (literal < segment.length()) {
+                sb.append(Pattern.quote(segment.substring(literal)));
+            }
+            return sb.toString();
+        }
+    }
+}
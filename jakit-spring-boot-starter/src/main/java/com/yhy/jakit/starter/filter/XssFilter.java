@@ -2,13 +2,12 @@ package com.yhy.jakit.starter.filter;
 
 import cn.hutool.core.util.StrUtil;
 import com.yhy.jakit.starter.wrapper.RequestWrapper;
+import com.yhy.jakit.starter.wrapper.XssSanitizer;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
 
 import javax.servlet.*;
 import javax.servlet.annotation.WebFilter;
 import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -17,6 +16,8 @@ import java.util.List;
 /**
  * xss 拦截器
  * <p>
+ * 表单参数和 json RequestBody 中的字符串都会被转义，allowFields 中的字段不转义
+ * <p>
  * Created on 2024-04-19 13:56
  *
  * @author 颜洪毅
@@ -26,12 +27,23 @@ import java.util.List;
 @Component
 @WebFilter(value = "/", filterName = "xss-filter", asyncSupported = true)
 public class XssFilter implements Filter {
+    // GET DELETE 不过滤
+    private static final List<String> METHOD_EXCLUDES = Arrays.asList("GET /**", "DELETE /**");
 
     /**
      * 排除链接
      */
     public List<String> excludes = new ArrayList<>();
 
+    /**
+     * 不转义的字段名或字段路径
+     */
+    public List<String> allowFields = new ArrayList<>();
+
+    private XssSanitizer sanitizer = XssSanitizer.of();
+
+    private PathRules rules = PathRules.compile(METHOD_EXCLUDES);
+
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {
         String tempExcludes = filterConfig.getInitParameter("excludes");
@@ -39,27 +51,32 @@ public class XssFilter implements Filter {
             String[] url = tempExcludes.split(",");
             excludes.addAll(Arrays.asList(url));
         }
+        String tempAllowFields = filterConfig.getInitParameter("allowFields");
+        if (StrUtil.isNotEmpty(tempAllowFields)) {
+            allowFields.addAll(Arrays.asList(tempAllowFields.split(",")));
+        }
+        sanitizer = new XssSanitizer(allowFields);
+        // 排除链接只编译一次
+        List<String> tempRules = new ArrayList<>(excludes);
+        tempRules.addAll(METHOD_EXCLUDES);
+        rules = PathRules.compile(tempRules);
     }
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
         HttpServletRequest req = (HttpServletRequest) request;
-        HttpServletResponse resp = (HttpServletResponse) response;
-        if (handleExcludeUrl(req, resp)) {
+        if (null == req.getMethod() || rules.matches(req)) {
             chain.doFilter(request, response);
             return;
         }
-        chain.doFilter(RequestWrapper.wrap(request), response);
-    }
-
-    private boolean handleExcludeUrl(HttpServletRequest request, HttpServletResponse response) {
-        String url = request.getServletPath();
-        String method = request.getMethod();
-        // GET DELETE 不过滤
-        boolean isFilter = method == null || method.matches("GET") || method.matches("DELETE");
-        if (isFilter) {
-            return true;
+        RequestWrapper wrapped = RequestWrapper.wrap(request, sanitizer);
+        try {
+            chain.doFilter(wrapped, response);
+        } finally {
+            // 异步请求仍可能读取 RequestBody，缓冲区交由 GC 回收
+            if (!request.isAsyncStarted()) {
+                wrapped.release();
+            }
         }
-        return excludes.stream().anyMatch(s -> new AntPathMatcher().match(s, url));
     }
 }
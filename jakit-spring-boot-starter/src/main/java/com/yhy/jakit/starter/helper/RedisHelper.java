@@ -27,6 +27,8 @@ public abstract class RedisHelper {
     private JsonHelper jsonHelper;
     @Autowired(required = false)
     private List<Listener> listeners;
+    @Autowired(required = false)
+    private RedisScriptRegistry scriptRegistry;
 
     /**
      * 保存一个对象
@@ -523,6 +525,25 @@ public abstract class RedisHelper {
         return template().execute(script, keys, args);
     }
 
+    /**
+     * 执行已注册的 lua 脚本
+     * <p>
+     * 脚本在启动时由 {@link RedisScriptRegistry} 加载，执行时使用 EVALSHA，redis 返回 NOSCRIPT 时才回退到 EVAL
+     *
+     * @param name       脚本名，classpath 下 script/ 目录中不含扩展名的文件名
+     * @param resultType 返回值类型
+     * @param keys       keys
+     * @param args       参数
+     * @param <T>        返回值类型
+     * @return 结果
+     */
+    public <T> T script(String name, Class<T> resultType, List<String> keys, Object... args) {
+        if (null == scriptRegistry) {
+            throw new RedisException("RedisScriptRegistry is not available.");
+        }
+        return script(scriptRegistry.get(name, resultType), keys, args);
+    }
+
     /**
      * 管道操作
      * <p>
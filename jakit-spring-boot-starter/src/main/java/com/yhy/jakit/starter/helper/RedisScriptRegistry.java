@@ -0,0 +1,125 @@
+package com.yhy.jakit.starter.helper;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * lua 脚本注册表
+ * <p>
+ * 启动时一次性加载 classpath 下 script/*.lua 的所有脚本并计算 SHA1，以文件名（不含扩展名）作为脚本名
+ * <p>
+ * 通过 {@link RedisHelper#script(String, Class, java.util.List, Object...)} 执行，
+ * 底层 {@link StringRedisTemplate#execute(RedisScript, java.util.List, Object...)} 优先使用 EVALSHA，
+ * 仅在 redis 返回 NOSCRIPT 时才回退到 EVAL 上传脚本
+ * <p>
+ * Created on 2026-10-17 11:05
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+@ConditionalOnClass({RedisScript.class, StringRedisTemplate.class})
+public class RedisScriptRegistry implements InitializingBean, SmartInitializingSingleton {
+    private static final String LOCATION = "classpath*:script/*.lua";
+    private static final String EXTENSION = ".lua";
+
+    private final Map<String, String> sources = new ConcurrentHashMap<>();
+    private final Map<String, RedisScript<?>> scripts = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ObjectProvider<RedisHelper> redisHelper;
+
+    /**
+     * 获取已注册的脚本
+     * <p>
+     * 同一脚本名和结果类型始终返回同一实例，SHA1 只计算一次
+     *
+     * @param name       脚本名
+     * @param resultType 结果类型
+     * @param <T>        结果类型
+     * @return 脚本
+     */
+    @SuppressWarnings("unchecked")
+    public <T> RedisScript<T> get(@NonNull String name, @NonNull Class<T> resultType) {
+        return (RedisScript<T>) scripts.computeIfAbsent(name + "@" + resultType.getName(), id -> {
+            String source = sources.get(name);
+            if (null == source) {
+                throw new RedisHelper.RedisException("No such lua script named '" + name + "'.");
+            }
+            RedisScript<T> script = RedisScript.of(source, resultType);
+            // 提前计算摘要
+            script.getSha1();
+            return script;
+        });
+    }
+
+    /**
+     * 注册一个脚本
+     * <p>
+     * 已存在同名脚本时覆盖
+     *
+     * @param name   脚本名
+     * @param source 脚本内容
+     */
+    public void register(@NonNull String name, @NonNull String source) {
+        sources.put(name, source);
+        scripts.keySet().removeIf(id -> id.startsWith(name + "@"));
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        Resource[] resources = new PathMatchingResourcePatternResolver().getResources(LOCATION);
+        for (Resource resource : resources) {
+            String filename = resource.getFilename();
+            if (!StringUtils.hasText(filename) || !filename.endsWith(EXTENSION)) {
+                continue;
+            }
+            register(filename.substring(0, filename.length() - EXTENSION.length()), read(resource));
+        }
+        log.info("Registered lua scripts: {}", sources.keySet());
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        // 预加载到 redis 脚本缓存，失败时由 NOSCRIPT 回退兜底
+        RedisHelper helper = redisHelper.getIfAvailable();
+        if (null == helper || sources.isEmpty()) {
+            return;
+        }
+        try {
+            helper.template().execute((RedisCallback<Object>) connection -> {
+                sources.values().forEach(source -> connection.scriptingCommands().scriptLoad(source.getBytes(StandardCharsets.UTF_8)));
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Preload lua scripts failed, will fall back to EVAL on NOSCRIPT. {}", e.getMessage());
+        }
+    }
+
+    private String read(Resource resource) throws IOException {
+        try (InputStream is = resource.getInputStream()) {
+            return StreamUtils.copyToString(is, StandardCharsets.UTF_8);
+        }
+    }
+}
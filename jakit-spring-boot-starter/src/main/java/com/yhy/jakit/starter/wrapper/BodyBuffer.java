@@ -0,0 +1,352 @@
+package com.yhy.jakit.starter.wrapper;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 请求体缓冲区
+ * <p>
+ * 内容只保存一份，通过 {@link #view()} 和 {@link #inputStream()} 获取只读视图，多次读取不再复制
+ * <p>
+ * 较小的内容保存在 {@link BufferPool} 借出的缓冲区中，超出溢出阈值时写入临时文件，通过内存映射读取，不再占用堆内存
+ * <p>
+ * {@link #close()} 后缓冲区可能已借给其他请求，不能再获取视图，已创建的输入流读取到流末尾，避免读到其他请求的内容
+ * <p>
+ * Created on 2026-10-17 19:45
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class BodyBuffer implements Closeable {
+    /**
+     * 默认溢出阈值，可通过系统属性 jakit.request.spill-threshold 修改
+     */
+    public static final int DEFAULT_SPILL_THRESHOLD = Integer.getInteger("jakit.request.spill-threshold", BufferPool.maxPooledSize());
+
+    /**
+     * 空缓冲区
+     */
+    public static final BodyBuffer EMPTY = new BodyBuffer(null, ByteBuffer.allocate(0));
+
+    // 池化的缓冲区，溢出到文件时为 null
+    private byte[] pooled;
+    private final ByteBuffer content;
+    private volatile boolean released;
+
+    private BodyBuffer(byte[] pooled, ByteBuffer content) {
+        this.pooled = pooled;
+        this.content = content;
+    }
+
+    /**
+     * 读取输入流中的全部内容
+     *
+     * @param in             输入流
+     * @param expectedLength 预期长度，未知时传入负数
+     * @param spillThreshold 溢出阈值
+     * @return 缓冲区
+     * @throws IOException 可能出现的异常
+     */
+    public static BodyBuffer read(InputStream in, int expectedLength, int spillThreshold) throws IOException {
+        Writer writer = new Writer(expectedLength, spillThreshold);
+        try {
+            byte[] chunk = new byte[8192];
+            int len;
+            while ((len = in.read(chunk)) != -1) {
+                writer.write(chunk, 0, len);
+            }
+            return writer.toBuffer();
+        } catch (IOException | RuntimeException e) {
+            writer.abort();
+            throw e;
+        }
+    }
+
+    /**
+     * 创建写入器，写入完成后通过 {@link Writer#toBuffer()} 得到缓冲区
+     *
+     * @param expectedLength 预期长度，未知时传入负数
+     * @param spillThreshold 溢出阈值
+     * @return 写入器
+     */
+    public static Writer writer(int expectedLength, int spillThreshold) {
+        return new Writer(expectedLength, spillThreshold);
+    }
+
+    /**
+     * 内容长度
+     *
+     * @return 字节数
+     */
+    public int size() {
+        return content.limit();
+    }
+
+    /**
+     * 是否已溢出到临时文件
+     *
+     * @return 是否溢出
+     */
+    public boolean spilled() {
+        return content.isDirect();
+    }
+
+    /**
+     * 只读视图，每次调用返回独立的读取位置
+     * <p>
+     * 视图直接引用池化的缓冲区，不能在 {@link #close()} 后继续使用
+     *
+     * @return 只读视图
+     * @throws IllegalStateException 已归还时抛出
+     */
+    public ByteBuffer view() {
+        if (released) {
+            throw new IllegalStateException("Body buffer has been released");
+        }
+        return content.asReadOnlyBuffer();
+    }
+
+    /**
+     * 基于只读视图的输入流，{@link #close()} 后读取到流末尾
+     *
+     * @return 输入流
+     * @throws IllegalStateException 已归还时抛出
+     */
+    public InputStream inputStream() {
+        return new ByteBufferInputStream(this, view());
+    }
+
+    /**
+     * 是否已归还
+     *
+     * @return 是否已归还
+     */
+    public boolean released() {
+        return released;
+    }
+
+    /**
+     * 复制全部内容
+     *
+     * @return 内容副本
+     */
+    public byte[] toByteArray() {
+        return toByteArray(size());
+    }
+
+    /**
+     * 复制前若干字节
+     *
+     * @param max 最多复制的字节数
+     * @return 内容副本
+     * @throws IllegalStateException 已归还时抛出
+     */
+    public byte[] toByteArray(int max) {
+        ByteBuffer view = view();
+        byte[] bytes = new byte[Math.min(Math.max(max, 0), view.remaining())];
+        view.get(bytes);
+        // 复制期间被归还时，内容可能已被其他请求覆盖
+        if (released) {
+            throw new IllegalStateException("Body buffer has been released");
+        }
+        return bytes;
+    }
+
+    /**
+     * 归还池化的缓冲区，之后不能再读取
+     * <p>
+     * 溢出的临时文件在映射后已删除，映射区域由 GC 回收
+     */
+    @Override
+    public synchronized void close() {
+        if (this == EMPTY || released) {
+            return;
+        }
+        // 先标记再归还，归还后读取的视图和输入流都能看到标记
+        released = true;
+        BufferPool.release(pooled);
+        pooled = null;
+    }
+
+    /**
+     * 缓冲区写入器
+     * <p>
+     * 先写入池化的缓冲区，容量不足时换用更大级别的缓冲区，超出溢出阈值时转为写入临时文件
+     */
+    public static final class Writer extends OutputStream {
+        private final int spillThreshold;
+        private byte[] buffer;
+        private int count;
+        private Path file;
+        private OutputStream fileOut;
+
+        private Writer(int expectedLength, int spillThreshold) {
+            this.spillThreshold = Math.max(spillThreshold, 0);
+            int initial = expectedLength < 0 ? 0 : expectedLength;
+            if (initial > this.spillThreshold) {
+                // 已知超出阈值时直接在写入时溢出，不再借缓冲区
+                initial = 0;
+            }
+            buffer = BufferPool.borrow(Math.max(initial, 1));
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (null != fileOut) {
+                fileOut.write(b);
+                count++;
+                return;
+            }
+            ensure(count + 1);
+            if (null != fileOut) {
+                write(b);
+                return;
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte @NotNull [] bs, int off, int len) throws IOException {
+            if (null != fileOut) {
+                fileOut.write(bs, off, len);
+                count += len;
+                return;
+            }
+            ensure(count + len);
+            if (null != fileOut) {
+                write(bs, off, len);
+                return;
+            }
+            System.arraycopy(bs, off, buffer, count, len);
+            count += len;
+        }
+
+        /**
+         * 完成写入
+         *
+         * @return 缓冲区
+         * @throws IOException 可能出现的异常
+         */
+        public BodyBuffer toBuffer() throws IOException {
+            if (null == fileOut) {
+                if (count == 0) {
+                    BufferPool.release(buffer);
+                    return EMPTY;
+                }
+                return new BodyBuffer(buffer, ByteBuffer.wrap(buffer, 0, count).slice());
+            }
+            fileOut.close();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return new BodyBuffer(null, channel.map(FileChannel.MapMode.READ_ONLY, 0, count));
+            } finally {
+                delete();
+            }
+        }
+
+        /**
+         * 放弃写入，释放已占用的资源
+         */
+        public void abort() {
+            BufferPool.release(buffer);
+            buffer = null;
+            if (null != fileOut) {
+                try {
+                    fileOut.close();
+                } catch (IOException ignored) {
+                }
+                delete();
+            }
+        }
+
+        private void ensure(int required) throws IOException {
+            if (required <= buffer.length) {
+                return;
+            }
+            if (required > spillThreshold) {
+                spill();
+                return;
+            }
+            byte[] larger = BufferPool.borrow(Math.min(Math.max(buffer.length << 1, required), spillThreshold));
+            System.arraycopy(buffer, 0, larger, 0, count);
+            BufferPool.release(buffer);
+            buffer = larger;
+        }
+
+        private void spill() throws IOException {
+            file = Files.createTempFile("jakit-body-", ".tmp");
+            fileOut = new BufferedOutputStream(Files.newOutputStream(file), 8192);
+            fileOut.write(buffer, 0, count);
+            BufferPool.release(buffer);
+            buffer = null;
+        }
+
+        private void delete() {
+            try {
+                // 映射建立后即可删除，不支持时退出时删除
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                file.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * 基于只读视图的输入流
+     * <p>
+     * 每次读取前后都检查所属缓冲区是否已归还，已归还时按流末尾处理
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final BodyBuffer owner;
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(BodyBuffer owner, ByteBuffer buffer) {
+            this.owner = owner;
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            if (owner.released || !buffer.hasRemaining()) {
+                return -1;
+            }
+            int b = buffer.get() & 0xFF;
+            return owner.released ? -1 : b;
+        }
+
+        @Override
+        public int read(byte @NotNull [] bs, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (owner.released || !buffer.hasRemaining()) {
+                return -1;
+            }
+            int read = Math.min(len, buffer.remaining());
+            buffer.get(bs, off, read);
+            // 复制期间被归还时，内容可能已被其他请求覆盖
+            return owner.released ? -1 : read;
+        }
+
+        @Override
+        public long skip(long n) {
+            if (owner.released) {
+                return 0L;
+            }
+            int skipped = (int) Math.max(Math.min(n, buffer.remaining()), 0);
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return owner.released ? 0 : buffer.remaining();
+        }
+    }
+}
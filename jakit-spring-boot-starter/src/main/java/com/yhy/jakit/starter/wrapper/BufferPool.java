@@ -0,0 +1,86 @@
+package com.yhy.jakit.starter.wrapper;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * 字节缓冲区池
+ * <p>
+ * 按 2 的幂次分级，借出的缓冲区长度不小于申请的长度，超出最大级别时直接分配，不入池
+ * <p>
+ * 每一级最多保留固定数量的空闲缓冲区，池满时归还的缓冲区交由 GC 回收
+ * <p>
+ * Created on 2026-10-17 19:20
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class BufferPool {
+    // 最小 1KB，最大 1MB
+    private static final int MIN_SHIFT = 10;
+    private static final int MAX_SHIFT = 20;
+    private static final int MAX_IDLE = 64;
+
+    @SuppressWarnings("unchecked")
+    private static final Queue<byte[]>[] POOLS = new Queue[MAX_SHIFT - MIN_SHIFT + 1];
+
+    static {
+        for (int i = 0; i < POOLS.length; i++) {
+            POOLS[i] = new ArrayBlockingQueue<>(MAX_IDLE);
+        }
+    }
+
+    private BufferPool() {
+        throw new UnsupportedOperationException("BufferPool can not be instantiate.");
+    }
+
+    /**
+     * 最大的池化缓冲区长度
+     *
+     * @return 最大长度
+     */
+    public static int maxPooledSize() {
+        return 1 << MAX_SHIFT;
+    }
+
+    /**
+     * 借出缓冲区
+     *
+     * @param size 最小长度
+     * @return 缓冲区，内容未清空
+     */
+    public static byte[] borrow(int size) {
+        int index = index(size);
+        if (index < 0) {
+            return new byte[size];
+        }
+        byte[] buffer = POOLS[index].poll();
+        return null != buffer ? buffer : new byte[1 << (index + MIN_SHIFT)];
+    }
+
+    /**
+     * 归还缓冲区
+     * <p>
+     * 只接收由 {@link #borrow(int)} 借出的缓冲区，归还后不能再使用
+     *
+     * @param buffer 缓冲区
+     */
+    public static void release(byte[] buffer) {
+        if (null == buffer || Integer.bitCount(buffer.length) != 1) {
+            return;
+        }
+        int index = Integer.numberOfTrailingZeros(buffer.length) - MIN_SHIFT;
+        if (index >= 0 && index < POOLS.length) {
+            POOLS[index].offer(buffer);
+        }
+    }
+
+    private static int index(int size) {
+        if (size > maxPooledSize()) {
+            return -1;
+        }
+        int shift = size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+        return Math.max(shift, MIN_SHIFT) - MIN_SHIFT;
+    }
+}
@@ -4,7 +4,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
-import org.springframework.util.StreamUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.util.HtmlUtils;
 import org.springframework.web.util.WebUtils;
@@ -24,6 +23,13 @@ import java.util.*;
  * <p>
  * <a href="https://www.baeldung.com/spring-reading-httpservletrequest-multiple-times">解决方案</a>
  * <p>
+ * RequestBody 保存在 {@link BodyBuffer} 中，多次读取共用同一份内容，较大的 RequestBody 溢出到临时文件，请求结束后应调用 {@link #release()} 归还缓冲区
+ * <p>
+ * 包装时不读取 RequestBody，首次读取时直接从原请求流式读取，同时留存读取到的内容；
+ * 首次读取未读完或尚未读取时，再次读取或调用 {@link #body()} 等方法才读取剩余内容；从未读取 RequestBody 的请求没有任何缓冲开销
+ * <p>
+ * 指定 {@link XssSanitizer} 时，json 在留存的同时完成转义，只解析一遍，之后读取到的都是转义后的内容；表单参数也按白名单转义
+ * <p>
  * Created on 2022-07-26 16:44
  *
  * @author 颜洪毅
@@ -32,7 +38,17 @@ import java.util.*;
  */
 @Slf4j
 public class RequestWrapper extends HttpServletRequestWrapper {
-    private ByteArrayOutputStream cachedContent = new ByteArrayOutputStream();
+    // 只处理 POST 请求
+    private final boolean post;
+    private Boolean json;
+    // 已完整留存的 RequestBody，未留存时为 null
+    private BodyBuffer cachedContent;
+    // 首次读取时边读边留存
+    private BodyBuffer.Writer writer;
+    private ServletInputStream source;
+    private boolean released;
+    // xss 过滤器，为 null 时只转义表单参数
+    private final XssSanitizer sanitizer;
 
     /**
      * 包装
@@ -41,21 +57,22 @@ public class RequestWrapper extends HttpServletRequestWrapper {
      * @throws IOException 可能出现的异常
      */
     public RequestWrapper(HttpServletRequest request) throws IOException {
-        super(request);
+        this(request, null);
+    }
 
-        // 只处理 POST 请求
-        if (HttpMethod.POST.matches(request.getMethod())) {
+    /**
+     * 包装
+     *
+     * @param request   原 HttpServletRequest
+     * @param sanitizer xss 过滤器
+     * @throws IOException 可能出现的异常
+     */
+    public RequestWrapper(HttpServletRequest request, XssSanitizer sanitizer) throws IOException {
+        super(request);
+        this.sanitizer = sanitizer;
+        post = HttpMethod.POST.matches(request.getMethod());
+        if (post) {
             log.debug("Wrapping the request which url is {} ...", request.getRequestURL().toString());
-            int contentLength = getContentLength();
-            cachedContent = new ByteArrayOutputStream(Math.max(contentLength, 0));
-
-            if (isApplicationJson()) {
-                byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
-                cachedContent.write(body);
-            } else {
-                // 其他类型的，只是把参数取出重新组装成 body 的样子，否则 getParameter() 等系列方法会获取不到参数
-                cacheRequestParameters();
-            }
         }
     }
 
@@ -81,13 +98,68 @@ public class RequestWrapper extends HttpServletRequestWrapper {
         return new RequestWrapper(request);
     }
 
+    /**
+     * 包装，并转义 RequestBody 中的 xss 内容
+     *
+     * @param request   原 ServletRequest
+     * @param sanitizer xss 过滤器
+     * @return 包装实例
+     * @throws IOException 可能出现的异常
+     */
+    public static RequestWrapper wrap(ServletRequest request, XssSanitizer sanitizer) throws IOException {
+        return wrap((HttpServletRequest) request, sanitizer);
+    }
+
+    /**
+     * 包装，并转义 RequestBody 中的 xss 内容
+     *
+     * @param request   原 HttpServletRequest
+     * @param sanitizer xss 过滤器
+     * @return 包装实例
+     * @throws IOException 可能出现的异常
+     */
+    public static RequestWrapper wrap(HttpServletRequest request, XssSanitizer sanitizer) throws IOException {
+        return new RequestWrapper(request, sanitizer);
+    }
+
     /**
      * RequestBody
+     * <p>
+     * 每次调用都会复制全部内容，只读取时应使用 {@link #bodyBuffer()}
      *
      * @return RequestBody
      */
     public byte[] body() {
-        return cachedContent.toByteArray();
+        return bodyBuffer().toByteArray();
+    }
+
+    /**
+     * RequestBody 缓冲区，可获取只读视图，不复制内容
+     *
+     * @return RequestBody 缓冲区
+     */
+    public BodyBuffer bodyBuffer() {
+        try {
+            return materialize();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to cache request body", e);
+        }
+    }
+
+    /**
+     * 归还 RequestBody 缓冲区，之后不能再读取 RequestBody
+     * <p>
+     * 之后获取的 RequestBody 为空，已获取的输入流读取到流末尾，已获取的 {@link BodyBuffer} 不能再获取视图
+     */
+    public synchronized void release() {
+        released = true;
+        if (null != cachedContent) {
+            cachedContent.close();
+        }
+        if (null != writer) {
+            writer.abort();
+            writer = null;
+        }
     }
 
     /**
@@ -106,20 +178,29 @@ public class RequestWrapper extends HttpServletRequestWrapper {
      * @return RequestBody
      */
     public String string(Charset charset) {
-        if (null == body()) {
-            return null;
-        }
-        return new String(body(), charset);
+        return charset.decode(bodyBuffer().view()).toString();
     }
 
     /**
      * ServletInputStream
+     * <p>
+     * 首次读取 json 时返回边读边留存的流，之后返回留存内容的只读视图；需要转义时先完成转义，返回转义后内容的只读视图
      *
      * @return ServletInputStream
+     * @throws IOException 可能出现的异常
      */
     @Override
-    public ServletInputStream getInputStream() {
-        return new CachedBodyServletInputStream(body());
+    public synchronized ServletInputStream getInputStream() throws IOException {
+        if (!post) {
+            // 非 POST 请求不留存，直接读取原请求
+            return super.getInputStream();
+        }
+        if (null == sanitizer && null == cachedContent && null == writer && isApplicationJson()) {
+            source = super.getInputStream();
+            writer = BodyBuffer.writer(super.getContentLength(), BodyBuffer.DEFAULT_SPILL_THRESHOLD);
+            return new TeeServletInputStream();
+        }
+        return new CachedBodyServletInputStream(materialize().inputStream());
     }
 
     /**
@@ -128,10 +209,24 @@ public class RequestWrapper extends HttpServletRequestWrapper {
      * @return BufferedReader
      */
     @Override
-    public BufferedReader getReader() {
+    public BufferedReader getReader() throws IOException {
         return new BufferedReader(new InputStreamReader(getInputStream()));
     }
 
+    @Override
+    public int getContentLength() {
+        return sanitizedJson() ? (int) getContentLengthLong() : super.getContentLength();
+    }
+
+    @Override
+    public synchronized long getContentLengthLong() {
+        if (!sanitizedJson()) {
+            return super.getContentLengthLong();
+        }
+        // 转义后长度可能变化，转义前未知，转义后以转义后的内容为准
+        return null != cachedContent ? cachedContent.size() : -1L;
+    }
+
     @Override
     public String getCharacterEncoding() {
         String enc = super.getCharacterEncoding();
@@ -159,9 +254,12 @@ public class RequestWrapper extends HttpServletRequestWrapper {
         String[] results = super.getParameterValues(name);
         if (results != null && results.length > 0) {
             int length = results.length;
+            if (null != sanitizer && sanitizer.allowed(name)) {
+                return results;
+            }
             for (int i = 0; i < length; i++) {
                 // 过滤参数值
-                results[i] = HtmlUtils.htmlEscape(results[i]);
+                results[i] = null != sanitizer ? sanitizer.escape(results[i]) : HtmlUtils.htmlEscape(results[i]);
             }
             return results;
         }
@@ -177,7 +275,79 @@ public class RequestWrapper extends HttpServletRequestWrapper {
                 ).orElse(null);
     }
 
+    /**
+     * 留存完整的 RequestBody
+     *
+     * @return RequestBody 缓冲区
+     * @throws IOException 可能出现的异常
+     */
+    private synchronized BodyBuffer materialize() throws IOException {
+        if (!post || released) {
+            // 归还后留存的缓冲区可能已借给其他请求，按空内容处理
+            return BodyBuffer.EMPTY;
+        }
+        if (null != cachedContent) {
+            return cachedContent;
+        }
+        if (isApplicationJson()) {
+            if (null != sanitizer) {
+                sanitize();
+                return cachedContent;
+            }
+            if (null == writer) {
+                source = super.getInputStream();
+                writer = BodyBuffer.writer(super.getContentLength(), BodyBuffer.DEFAULT_SPILL_THRESHOLD);
+            }
+            // 读取首次读取未读完的部分
+            byte[] chunk = new byte[8192];
+            int len;
+            while ((len = source.read(chunk)) != -1) {
+                writer.write(chunk, 0, len);
+            }
+            finish();
+        } else {
+            // 其他类型的，只是把参数取出重新组装成 body 的样子，否则 getParameter() 等系列方法会获取不到参数
+            cacheRequestParameters();
+        }
+        return cachedContent;
+    }
+
+    /**
+     * 转义的同时写入留存的缓冲区，json 格式错误时抛出异常
+     *
+     * @throws IOException 可能出现的异常
+     */
+    private void sanitize() throws IOException {
+        writer = BodyBuffer.writer(super.getContentLength(), BodyBuffer.DEFAULT_SPILL_THRESHOLD);
+        try {
+            sanitizer.sanitizeJson(super.getInputStream(), writer);
+        } catch (IOException | RuntimeException e) {
+            writer.abort();
+            writer = null;
+            throw e;
+        }
+        finish();
+    }
+
+    private boolean sanitizedJson() {
+        return post && null != sanitizer && isApplicationJson();
+    }
+
+    private synchronized void finish() throws IOException {
+        if (null != writer) {
+            cachedContent = writer.toBuffer();
+            writer = null;
+        }
+    }
+
     private boolean isApplicationJson() {
+        if (null == json) {
+            json = contentTypeIsJson();
+        }
+        return json;
+    }
+
+    private boolean contentTypeIsJson() {
         // application/json
         String contentType = getContentType();
         if (!StringUtils.hasText(contentType)) {
@@ -190,42 +360,103 @@ public class RequestWrapper extends HttpServletRequestWrapper {
 
     private void cacheRequestParameters() {
         // application/x-www-form-urlencoded，multipart/form-data
+        BodyBuffer.Writer writer = BodyBuffer.writer(-1, BodyBuffer.DEFAULT_SPILL_THRESHOLD);
         try {
-            if (cachedContent.size() == 0) {
-                String requestEncoding = getCharacterEncoding();
-                Map<String, String[]> form = super.getParameterMap();
-                for (Iterator<String> nameIterator = form.keySet().iterator(); nameIterator.hasNext(); ) {
-                    String name = nameIterator.next();
-                    List<String> values = Arrays.asList(form.get(name));
-                    for (Iterator<String> valueIterator = values.iterator(); valueIterator.hasNext(); ) {
-                        String value = valueIterator.next();
-                        cachedContent.write(URLEncoder.encode(name, requestEncoding).getBytes());
-                        if (value != null) {
-                            cachedContent.write('=');
-                            cachedContent.write(URLEncoder.encode(value, requestEncoding).getBytes());
-                            if (valueIterator.hasNext()) {
-                                cachedContent.write('&');
-                            }
-                        }
+            String requestEncoding = getCharacterEncoding();
+            Map<String, String[]> form = super.getParameterMap();
+            for (Iterator<String> nameIterator = form.keySet().iterator(); nameIterator.hasNext(); ) {
+                String name = nameIterator.next();
+                List<String> values = Arrays.asList(form.get(name));
+                for (Iterator<String> valueIterator = values.iterator(); valueIterator.hasNext(); ) {
+                    String value = valueIterator.next();
+                    if (null != value && null != sanitizer && !sanitizer.allowed(name)) {
+                        value = sanitizer.escape(value);
                     }
-                    if (nameIterator.hasNext()) {
-                        cachedContent.write('&');
+                    writer.write(URLEncoder.encode(name, requestEncoding).getBytes());
+                    if (value != null) {
+                        writer.write('=');
+                        writer.write(URLEncoder.encode(value, requestEncoding).getBytes());
+                        if (valueIterator.hasNext()) {
+                            writer.write('&');
+                        }
                     }
                 }
+                if (nameIterator.hasNext()) {
+                    writer.write('&');
+                }
             }
+            cachedContent = writer.toBuffer();
         } catch (IOException ex) {
+            writer.abort();
             throw new IllegalStateException("Failed to write request parameters to cached content", ex);
         }
     }
 
+    /**
+     * 首次读取时从原请求读取，同时留存读取到的内容
+     * <p>
+     * 读取途中被其他使用方读取了剩余内容时，从留存内容中接着读取
+     */
+    private class TeeServletInputStream extends ServletInputStream {
+        private int position;
+        private InputStream replay;
+
+        @Override
+        public boolean isFinished() {
+            synchronized (RequestWrapper.this) {
+                return null != replay ? position >= cachedContent.size() : source.isFinished();
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return null != replay || source.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener listener) {
+            source.setReadListener(listener);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte @NotNull [] bs, int off, int len) throws IOException {
+            synchronized (RequestWrapper.this) {
+                if (released) {
+                    return -1;
+                }
+                if (null == replay && null == writer) {
+                    // 剩余内容已被读取并留存
+                    replay = cachedContent.inputStream();
+                    replay.skip(position);
+                }
+                int read = null != replay ? replay.read(bs, off, len) : source.read(bs, off, len);
+                if (read == -1) {
+                    finish();
+                    return -1;
+                }
+                if (null == replay) {
+                    writer.write(bs, off, read);
+                }
+                position += read;
+                return read;
+            }
+        }
+    }
+
     /**
      * 核心灵魂
      */
     private static class CachedBodyServletInputStream extends ServletInputStream {
         private final InputStream stream;
 
-        CachedBodyServletInputStream(byte[] buffer) {
-            stream = new ByteArrayInputStream(buffer);
+        CachedBodyServletInputStream(InputStream stream) {
+            this.stream = stream;
         }
 
         @Override
@@ -258,5 +489,10 @@ public class RequestWrapper extends HttpServletRequestWrapper {
         public int read(byte @NotNull [] bs) throws IOException {
             return stream.read(bs);
         }
+
+        @Override
+        public int read(byte @NotNull [] bs, int off, int len) throws IOException {
+            return stream.read(bs, off, len);
+        }
     }
 }
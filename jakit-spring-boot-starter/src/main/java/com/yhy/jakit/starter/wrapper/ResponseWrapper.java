@@ -0,0 +1,266 @@
+package com.yhy.jakit.starter.wrapper;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * HttpServletResponse 的包装模型，支持在输出的同时留存 ResponseBody
+ * <p>
+ * 与 {@link RequestWrapper} 对应，写入原响应的字节同时复制一份到 {@link BufferPool} 借出的缓冲区中，超出上限的部分不再留存，响应仍然是流式输出的
+ * <p>
+ * 只有调用 {@link #capture(int, Consumer)} 之后才会留存，未留存时只是直接透传；{@link #getWriter()} 按响应编码写入同一个留存的输出流
+ * <p>
+ * 响应完成后需调用 {@link #complete()}，通知留存的使用方并归还缓冲区
+ * <p>
+ * Created on 2026-10-17 19:30
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+@Slf4j
+public class ResponseWrapper extends HttpServletResponseWrapper {
+    private final List<Consumer<ResponseWrapper>> listeners = new ArrayList<>(1);
+    private int limit = -1;
+    private byte[] buffer;
+    private int count;
+    private boolean truncated;
+    private boolean completed;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    /**
+     * 包装
+     *
+     * @param response 原 HttpServletResponse
+     */
+    public ResponseWrapper(HttpServletResponse response) {
+        super(response);
+    }
+
+    /**
+     * 包装
+     *
+     * @param response 原 ServletResponse
+     * @return 包装实例
+     */
+    public static ResponseWrapper wrap(ServletResponse response) {
+        return wrap((HttpServletResponse) response);
+    }
+
+    /**
+     * 包装
+     *
+     * @param response 原 HttpServletResponse
+     * @return 包装实例
+     */
+    public static ResponseWrapper wrap(HttpServletResponse response) {
+        return new ResponseWrapper(response);
+    }
+
+    /**
+     * 开始留存 ResponseBody
+     * <p>
+     * 多个使用方同时留存时取最大的上限
+     *
+     * @param limit      最多留存的字节数
+     * @param onComplete 响应完成时的回调，此时可通过 {@link #body()} 获取留存内容
+     */
+    public synchronized void capture(int limit, Consumer<ResponseWrapper> onComplete) {
+        this.limit = Math.max(this.limit, Math.max(limit, 0));
+        listeners.add(onComplete);
+    }
+
+    /**
+     * 已留存的 ResponseBody
+     *
+     * @return ResponseBody，未留存时返回 null
+     */
+    public synchronized byte[] body() {
+        return null == buffer ? null : Arrays.copyOf(buffer, count);
+    }
+
+    /**
+     * 留存的 ResponseBody 是否已被截断
+     *
+     * @return 是否截断
+     */
+    public synchronized boolean truncated() {
+        return truncated;
+    }
+
+    /**
+     * 响应完成，通知留存的使用方并归还缓冲区
+     * <p>
+     * 重复调用时只生效一次
+     */
+    public void complete() {
+        if (null != writer) {
+            // 编码器中可能还有未写入输出流的字符，需在标记完成前写出才能留存
+            writer.flush();
+        }
+        List<Consumer<ResponseWrapper>> notified;
+        synchronized (this) {
+            if (completed) {
+                return;
+            }
+            completed = true;
+            notified = new ArrayList<>(listeners);
+        }
+        try {
+            for (Consumer<ResponseWrapper> listener : notified) {
+                try {
+                    listener.accept(this);
+                } catch (RuntimeException e) {
+                    log.warn("ResponseWrapper complete listener failed", e);
+                }
+            }
+        } finally {
+            synchronized (this) {
+                BufferPool.release(buffer);
+                buffer = null;
+                count = 0;
+                listeners.clear();
+            }
+        }
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (null != writer) {
+            throw new IllegalStateException("getWriter() has already been called for this response");
+        }
+        return capturingStream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (null == writer) {
+            if (null != outputStream) {
+                throw new IllegalStateException("getOutputStream() has already been called for this response");
+            }
+            // 与容器一致，按获取时的响应编码写入
+            writer = new PrintWriter(new OutputStreamWriter(capturingStream(), getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (null != writer) {
+            writer.flush();
+        }
+        super.flushBuffer();
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        discard();
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        discard();
+    }
+
+    private ServletOutputStream capturingStream() throws IOException {
+        if (null == outputStream) {
+            outputStream = new CapturingServletOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    private synchronized void discard() {
+        count = 0;
+        truncated = false;
+    }
+
+    private synchronized void copy(int b) {
+        if (limit < 0 || completed) {
+            return;
+        }
+        if (null == buffer) {
+            buffer = BufferPool.borrow(limit);
+        }
+        if (count < limit) {
+            buffer[count++] = (byte) b;
+        } else {
+            truncated = true;
+        }
+    }
+
+    private synchronized void copy(byte[] bs, int off, int len) {
+        if (limit < 0 || completed) {
+            return;
+        }
+        if (null == buffer) {
+            buffer = BufferPool.borrow(limit);
+        }
+        int copied = Math.min(len, limit - count);
+        if (copied > 0) {
+            System.arraycopy(bs, off, buffer, count, copied);
+            count += copied;
+        }
+        if (copied < len) {
+            truncated = true;
+        }
+    }
+
+    /**
+     * 写入原响应的同时留存
+     */
+    private class CapturingServletOutputStream extends ServletOutputStream {
+        private final ServletOutputStream stream;
+
+        CapturingServletOutputStream(ServletOutputStream stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        public boolean isReady() {
+            return stream.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            stream.setWriteListener(listener);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            stream.write(b);
+            copy(b);
+        }
+
+        @Override
+        public void write(byte @NotNull [] bs, int off, int len) throws IOException {
+            stream.write(bs, off, len);
+            copy(bs, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            stream.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            stream.close();
+        }
+    }
+}
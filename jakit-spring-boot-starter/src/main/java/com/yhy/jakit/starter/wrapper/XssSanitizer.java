@@ -0,0 +1,169 @@
+package com.yhy.jakit.starter.wrapper;
+
+import com.fasterxml.jackson.core.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.*;
+
+/**
+ * xss 过滤器
+ * <p>
+ * 使用 jackson 流式解析 json，只转义字符串值，边解析边输出，不构建中间树；字段名、数字等其他内容原样输出
+ * <p>
+ * 白名单字段不转义，支持字段名（如 content）和以 . 分隔的字段路径（如 article.content），数组中的元素按所属字段匹配
+ * <p>
+ * Created on 2026-10-17 20:10
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class XssSanitizer {
+    private static final JsonFactory FACTORY = new JsonFactory()
+        .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE)
+        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private final Set<String> allowFields;
+    // 白名单中有字段路径时才需要计算路径
+    private final boolean hasPaths;
+
+    /**
+     * 构造函数
+     *
+     * @param allowFields 不转义的字段名或字段路径
+     */
+    public XssSanitizer(Collection<String> allowFields) {
+        Set<String> fields = new HashSet<>();
+        if (null != allowFields) {
+            allowFields.stream().filter(Objects::nonNull).map(String::trim).filter(field -> !field.isEmpty()).forEach(fields::add);
+        }
+        this.allowFields = Collections.unmodifiableSet(fields);
+        this.hasPaths = fields.stream().anyMatch(field -> field.indexOf('.') > 0);
+    }
+
+    /**
+     * 创建过滤器
+     *
+     * @param allowFields 不转义的字段名或字段路径
+     * @return 过滤器
+     */
+    public static XssSanitizer of(String... allowFields) {
+        return new XssSanitizer(Arrays.asList(allowFields));
+    }
+
+    /**
+     * 过滤 json
+     * <p>
+     * json 格式错误时抛出 {@link JsonProcessingException}
+     *
+     * @param in  原始 json
+     * @param out 过滤结果，utf-8 编码
+     * @throws IOException 可能出现的异常
+     */
+    public void sanitizeJson(InputStream in, OutputStream out) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(in); JsonGenerator generator = FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            JsonToken token;
+            while (null != (token = parser.nextToken())) {
+                switch (token) {
+                    case VALUE_STRING:
+                        String text = parser.getText();
+                        generator.writeString(allowed(parser.getParsingContext()) ? text : escape(text));
+                        break;
+                    case VALUE_NUMBER_INT:
+                    case VALUE_NUMBER_FLOAT:
+                        // 按原文输出，避免浮点数精度变化
+                        generator.writeNumber(parser.getText());
+                        break;
+                    default:
+                        generator.copyCurrentEvent(parser);
+                }
+            }
+        }
+    }
+
+    /**
+     * 字段是否在白名单中
+     *
+     * @param field 字段名
+     * @return 是否不转义
+     */
+    public boolean allowed(String field) {
+        return null != field && allowFields.contains(field);
+    }
+
+    /**
+     * 转义 html 特殊字符 &lt; &gt; &amp; &quot; &#39;，不含特殊字符时返回原值
+     * <p>
+     * 与 {@link org.springframework.web.util.HtmlUtils#htmlEscape(String)} 不同，不转义其他非 ascii 字符，避免改变 json 中的正常内容
+     *
+     * @param value 原始值
+     * @return 转义结果
+     */
+    public String escape(String value) {
+        if (null == value) {
+            return null;
+        }
+        StringBuilder sb = null;
+        for (int i = 0; i < value.length(); i++) {
+            String replacement = replacement(value.charAt(i));
+            if (null == replacement) {
+                if (null != sb) {
+                    sb.append(value.charAt(i));
+                }
+                continue;
+            }
+            if (null == sb) {
+                sb = new StringBuilder(value.length() + 16).append(value, 0, i);
+            }
+            sb.append(replacement);
+        }
+        return null == sb ? value : sb.toString();
+    }
+
+    private static String replacement(char c) {
+        switch (c) {
+            case '<':
+                return "&lt;";
+            case '>':
+                return "&gt;";
+            case '&':
+                return "&amp;";
+            case '"':
+                return "&quot;";
+            case '\'':
+                return "&#39;";
+            default:
+                return null;
+        }
+    }
+
+    private boolean allowed(JsonStreamContext context) {
+        if (allowFields.isEmpty()) {
+            return false;
+        }
+        // 数组元素按所属字段匹配
+        JsonStreamContext owner = context;
+        while (null != owner && !owner.inObject()) {
+            owner = owner.getParent();
+        }
+        if (null == owner) {
+            return false;
+        }
+        if (allowed(owner.getCurrentName())) {
+            return true;
+        }
+        return hasPaths && allowFields.contains(path(owner));
+    }
+
+    private static String path(JsonStreamContext context) {
+        Deque<String> names = new ArrayDeque<>();
+        for (JsonStreamContext ctx = context; null != ctx; ctx = ctx.getParent()) {
+            if (ctx.inObject() && null != ctx.getCurrentName()) {
+                names.addFirst(ctx.getCurrentName());
+            }
+        }
+        return String.join(".", names);
+    }
+}
@@ -6,13 +6,13 @@ import com.yhy.jakit.starter.logging.model.Log;
 import com.yhy.jakit.starter.logging.provider.UserProvider;
 import com.yhy.jakit.starter.logging.writer.LoggingWriter;
 import com.yhy.jakit.util.cst.Define;
+import com.yhy.jakit.util.internal.Trace;
 import com.yhy.jakit.util.system.SystemClock;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.Signature;
 import org.aspectj.lang.annotation.*;
 import org.aspectj.lang.reflect.MethodSignature;
-import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -128,7 +128,7 @@ public class LogAspect {
     }
 
     private String getTraceId() {
-        String traceId = MDC.get(Define.TRACE_ID);
+        String traceId = Trace.get(Define.TRACE_ID);
         if (StringUtils.hasText(traceId)) {
             return traceId;
         }
@@ -24,6 +24,11 @@ public interface HttpUtils {
      * @return 参数值
      */
     static String getHeader(HttpServletRequest request, String name) {
+        // 容器的 getHeader 本身忽略大小写，找不到时再逐个匹配
+        String value = request.getHeader(name);
+        if (null != value) {
+            return value;
+        }
         Enumeration<String> names = request.getHeaderNames();
         String temp;
         while (names.hasMoreElements()) {
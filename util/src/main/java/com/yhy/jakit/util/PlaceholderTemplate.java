@@ -0,0 +1,253 @@
+package com.yhy.jakit.util;
+
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 预编译的占位符模板
+ * <p>
+ * 与 {@link PlaceholderUtils#resolve(String, String[], Object[])} 语义一致，支持 ${参数名} ${obj.field.field}，字段通过 getter 读取，
+ * 字段不存在或没有 getter 时保留当前值
+ * <p>
+ * 模板只解析一次，参数位置与字段访问链在编译时确定，字段访问器按运行时类型缓存为 {@link MethodHandle}，填充时不再使用正则与反射
+ * <p>
+ * Created on 2026-10-17 17:40
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class PlaceholderTemplate {
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\$\\{([^{}]+?)}");
+    private static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    // 字段不存在、没有 getter 或 getter 出错时的返回值，与 PlaceholderUtils 一致，保留当前值并停止访问后续字段
+    private static final Object MISSING = new Object();
+    private static final MethodHandle NONE = MethodHandles.dropArguments(MethodHandles.constant(Object.class, MISSING), 0, Object.class);
+
+    // 按方法缓存，同一方法上可能有多个模板
+    private static final Map<Method, Map<String, PlaceholderTemplate>> CACHE = new ConcurrentHashMap<>();
+
+    private final String template;
+    private final Segment[] segments;
+
+    private PlaceholderTemplate(String template, Segment[] segments) {
+        this.template = template;
+        this.segments = segments;
+    }
+
+    /**
+     * 获取方法上的模板，首次使用时编译并缓存
+     *
+     * @param method   模板所属方法
+     * @param template 模板
+     * @param names    参数名
+     * @return 编译后的模板
+     */
+    public static PlaceholderTemplate of(Method method, String template, String[] names) {
+        return CACHE.computeIfAbsent(method, key -> new ConcurrentHashMap<>()).computeIfAbsent(template, key -> compile(key, names));
+    }
+
+    /**
+     * 编译模板
+     *
+     * @param template 模板
+     * @param names    参数名
+     * @return 编译后的模板
+     */
+    public static PlaceholderTemplate compile(String template, String[] names) {
+        Matcher matcher = PLACEHOLDER.matcher(template);
+        List<Segment> segments = new ArrayList<>();
+        int start = 0;
+        while (matcher.find()) {
+            if (matcher.start() > start) {
+                segments.add(new Literal(template.substring(start, matcher.start())));
+            }
+            String[] holderNames = matcher.group(1).split("\\.");
+            // 第一级占位符为参数名，找不到参数时原样保留
+            int index = null == names ? -1 : ArrayUtils.indexOf(names, parameter -> holderNames[0].equals(parameter));
+            if (index < 0) {
+                segments.add(new Literal(matcher.group(0)));
+            } else {
+                Accessor[] chain = new Accessor[holderNames.length - 1];
+                for (int i = 1; i < holderNames.length; i++) {
+                    chain[i - 1] = new Accessor(holderNames[i]);
+                }
+                segments.add(new Parameter(index, matcher.group(0), chain));
+            }
+            start = matcher.end();
+        }
+        if (start < template.length()) {
+            segments.add(new Literal(template.substring(start)));
+        }
+        return new PlaceholderTemplate(template, segments.toArray(new Segment[0]));
+    }
+
+    /**
+     * 使用参数值填充模板
+     *
+     * @param values 参数值
+     * @return 填充结果
+     */
+    public String resolve(Object[] values) {
+        if (segments.length == 0) {
+            return template;
+        }
+        if (segments.length == 1 && segments[0] instanceof Literal) {
+            return ((Literal) segments[0]).text;
+        }
+        StringBuilder sb = new StringBuilder(template.length() + 16);
+        for (Segment segment : segments) {
+            segment.append(sb, values);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 原始模板
+     *
+     * @return 模板
+     */
+    public String template() {
+        return template;
+    }
+
+    /**
+     * 模板片段
+     */
+    private interface Segment {
+
+        /**
+         * 追加片段内容
+         *
+         * @param sb     结果
+         * @param values 参数值
+         */
+        void append(StringBuilder sb, Object[] values);
+    }
+
+    /**
+     * 普通文本
+     */
+    private static class Literal implements Segment {
+        private final String text;
+
+        private Literal(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public void append(StringBuilder sb, Object[] values) {
+            sb.append(text);
+        }
+    }
+
+    /**
+     * 参数占位符
+     */
+    private static class Parameter implements Segment {
+        private final int index;
+        private final String placeholder;
+        private final Accessor[] chain;
+
+        private Parameter(int index, String placeholder, Accessor[] chain) {
+            this.index = index;
+            this.placeholder = placeholder;
+            this.chain = chain;
+        }
+
+        @Override
+        public void append(StringBuilder sb, Object[] values) {
+            if (null == values || index >= values.length) {
+                // 参数值缺失时原样保留
+                sb.append(placeholder);
+                return;
+            }
+            Object value = values[index];
+            for (int i = 0; i < chain.length && null != value; i++) {
+                Object next = chain[i].get(value);
+                if (next == MISSING) {
+                    break;
+                }
+                value = next;
+            }
+            if (null != value) {
+                sb.append(value);
+            }
+        }
+    }
+
+    /**
+     * 字段访问器
+     * <p>
+     * 参数声明类型可能是接口或父类，访问器按运行时类型解析，并缓存最近一次解析结果
+     */
+    private static class Accessor {
+        private final String name;
+        private final Map<Class<?>, MethodHandle> handles = new ConcurrentHashMap<>();
+        private volatile Resolved last;
+
+        private Accessor(String name) {
+            this.name = name;
+        }
+
+        private Object get(Object target) {
+            Class<?> type = target.getClass();
+            Resolved resolved = last;
+            if (null == resolved || resolved.type != type) {
+                resolved = new Resolved(type, handles.computeIfAbsent(type, this::handle));
+                last = resolved;
+            }
+            try {
+                return (Object) resolved.handle.invokeExact(target);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                return MISSING;
+            }
+        }
+
+        private MethodHandle handle(Class<?> type) {
+            Field field = ReflectionUtils.findField(type, name);
+            if (null == field) {
+                return NONE;
+            }
+            try {
+                // 与 PlaceholderUtils 一致，只通过 getter 读取，不直接读取字段
+                for (PropertyDescriptor pd : Introspector.getBeanInfo(type).getPropertyDescriptors()) {
+                    if (name.equals(pd.getName()) && null != pd.getReadMethod()) {
+                        Method getter = pd.getReadMethod();
+                        getter.setAccessible(true);
+                        return LOOKUP.unreflect(getter).asType(ACCESSOR_TYPE);
+                    }
+                }
+            } catch (Exception ignored) {
+            }
+            return NONE;
+        }
+    }
+
+    /**
+     * 运行时类型与访问句柄
+     */
+    private static class Resolved {
+        private final Class<?> type;
+        private final MethodHandle handle;
+
+        private Resolved(Class<?> type, MethodHandle handle) {
+            this.type = type;
+            this.handle = handle;
+        }
+    }
+}
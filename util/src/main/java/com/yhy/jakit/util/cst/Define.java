@@ -13,4 +13,5 @@ public interface Define {
     String TRACE_ID = "Trace-Id";
     String SPAN_ID = "Span-Id";
     String SPAN_CHAIN = "Span-Chain";
+    String TRACEPARENT = "traceparent";
 }
@@ -1,6 +1,7 @@
 package com.yhy.jakit.util.internal;
 
 import com.alibaba.ttl.TransmittableThreadLocal;
+import com.yhy.jakit.util.cst.Define;
 import org.slf4j.MDC;
 
 import java.util.Map;
@@ -8,6 +9,11 @@ import java.util.Map;
 /**
  * 追踪器
  * <p>
+ * 追踪上下文 {@link TraceContext} 保存在一个 TTL 中，TraceID 等只在需要时才编码为字符串
+ * <p>
+ * TraceID、SpanID、SpanChain 不再在设置时同步到 MDC，由 {@link #syncMdc()} 在需要输出日志时同步，
+ * 参考 {@link com.yhy.jakit.util.logback.TraceMdcFilter}；通过 {@link #put(String, String)} 设置的自定义属性仍立即同步
+ * <p>
  * Created on 2022-07-28 10:28
  *
  * @author 颜洪毅
@@ -15,20 +21,42 @@ import java.util.Map;
  * @since 1.0.0
  */
 public abstract class Trace {
-    private final static ThreadLocal<Map<String, String>> TL = new TransmittableThreadLocal<>();
+    private final static ThreadLocal<TraceContext> TL = new TransmittableThreadLocal<>();
+    // 当前线程已同步到 MDC 的上下文
+    private final static ThreadLocal<TraceContext> SYNCED = new ThreadLocal<>();
 
-    static {
-        TL.set(Maps.of());
+    /**
+     * 当前追踪上下文
+     *
+     * @return 追踪上下文，可能为 null
+     */
+    public static TraceContext context() {
+        return TL.get();
+    }
+
+    /**
+     * 设置当前追踪上下文
+     *
+     * @param context 追踪上下文
+     */
+    public static void set(TraceContext context) {
+        if (null == context) {
+            TL.remove();
+            return;
+        }
+        TL.set(context);
     }
 
     public static void put(String key, String value) {
         if (key == null) {
             throw new IllegalArgumentException("key cannot be null");
         }
-        if (null == TL.get()) {
-            TL.set(Maps.of());
+        TraceContext context = TL.get();
+        if (null == context) {
+            context = TraceContext.generate();
+            TL.set(context);
         }
-        TL.get().put(key, value);
+        context.attribute(key, value);
 
         // 同步到 MDC
         MDC.put(key, value);
@@ -38,17 +66,58 @@ public abstract class Trace {
         if (key == null) {
             throw new IllegalArgumentException("key cannot be null");
         }
-        if (null == TL.get()) {
+        TraceContext context = TL.get();
+        if (null == context) {
             return null;
         }
-        return TL.get().get(key);
+        // 手动设置的值优先
+        String value = context.attribute(key);
+        if (null != value) {
+            return value;
+        }
+        switch (key) {
+            case Define.TRACE_ID:
+                return context.traceId();
+            case Define.SPAN_ID:
+                return context.spanId();
+            case Define.SPAN_CHAIN:
+                return context.spanChain();
+            case Define.TRACEPARENT:
+                return context.traceparent();
+            default:
+                return null;
+        }
     }
 
-    public static void clear() {
-        // 只清 map 吧
-        if (null != TL.get()) {
-            TL.get().clear();
+    /**
+     * 将当前追踪上下文同步到 MDC，上下文未变化且 MDC 中仍有 TraceID 时不做任何处理
+     * <p>
+     * 其他代码可能在请求中途调用 {@link MDC#clear()}，此时需要重新同步
+     */
+    public static void syncMdc() {
+        TraceContext context = TL.get();
+        if (context == SYNCED.get() && (null == context || null != MDC.get(Define.TRACE_ID))) {
+            return;
+        }
+        SYNCED.set(context);
+        if (null == context) {
+            MDC.remove(Define.TRACE_ID);
+            MDC.remove(Define.SPAN_ID);
+            MDC.remove(Define.SPAN_CHAIN);
+            return;
+        }
+        MDC.put(Define.TRACE_ID, get(Define.TRACE_ID));
+        MDC.put(Define.SPAN_ID, get(Define.SPAN_ID));
+        MDC.put(Define.SPAN_CHAIN, get(Define.SPAN_CHAIN));
+        // 由其他线程传递过来的上下文，自定义属性也需要同步
+        for (Map.Entry<String, String> entry : context.attributes().entrySet()) {
+            MDC.put(entry.getKey(), entry.getValue());
         }
+    }
+
+    public static void clear() {
+        TL.remove();
+        SYNCED.remove();
         // 也清空 MDC
         MDC.clear();
     }
@@ -0,0 +1,378 @@
+package com.yhy.jakit.util.internal;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 追踪上下文
+ * <p>
+ * 128 位 TraceID 和 64 位 SpanID 以 long 保存，由 {@link ThreadLocalRandom} 生成，需要字符串时才编码为 16 进制并缓存
+ * <p>
+ * 支持解析和输出 W3C <a href="https://www.w3.org/TR/trace-context/#traceparent-header">traceparent</a>，
+ * 也兼容上游传入的非 16 进制 TraceID，此时原样保留，不再输出 traceparent
+ * <p>
+ * Created on 2026-10-17 21:10
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class TraceContext {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final String VERSION = "00";
+    private static final int TRACE_ID_LENGTH = 32;
+    private static final int SPAN_ID_LENGTH = 16;
+    // 00-{traceId}-{spanId}-{flags}
+    private static final int TRACEPARENT_LENGTH = 55;
+    private static final byte SAMPLED = 0x01;
+
+    private final long traceIdHigh;
+    private final long traceIdLow;
+    // 上游传入的非 16 进制 TraceID
+    private final String externalTraceId;
+    private final long spanId;
+    private final long parentSpanId;
+    private final byte flags;
+    // 上游的 SpanChain 和当前服务名，需要时再拼接
+    private final String upstreamChain;
+    private final String service;
+
+    // 以下均为延迟计算的缓存，重复计算结果一致，无需同步
+    private String traceIdHex;
+    private String spanIdHex;
+    private String spanChain;
+    private String traceparent;
+
+    private volatile Map<String, String> attributes;
+
+    private TraceContext(long traceIdHigh, long traceIdLow, String externalTraceId, long spanId, long parentSpanId, byte flags, String upstreamChain, String service) {
+        this.traceIdHigh = traceIdHigh;
+        this.traceIdLow = traceIdLow;
+        this.externalTraceId = externalTraceId;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.flags = flags;
+        this.upstreamChain = upstreamChain;
+        this.service = service;
+    }
+
+    /**
+     * 开始新的追踪
+     *
+     * @return 追踪上下文
+     */
+    public static TraceContext generate() {
+        return generate(null, null);
+    }
+
+    /**
+     * 开始新的追踪
+     *
+     * @param upstreamChain 上游的 SpanChain，可为 null
+     * @param service       当前服务名，为空时使用 SpanID
+     * @return 追踪上下文
+     */
+    public static TraceContext generate(String upstreamChain, String service) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long high = random.nextLong();
+        long low = nonZero(random);
+        return new TraceContext(high, low, null, nonZero(random), 0L, SAMPLED, upstreamChain, null == service || service.isEmpty() ? null : service);
+    }
+
+    /**
+     * 解析 W3C traceparent，得到上游的追踪上下文
+     *
+     * @param traceparent traceparent
+     * @return 追踪上下文，格式错误时返回 null
+     */
+    public static TraceContext parse(String traceparent) {
+        if (null == traceparent) {
+            return null;
+        }
+        String value = traceparent.trim();
+        if (value.length() < TRACEPARENT_LENGTH || value.charAt(2) != '-' || value.charAt(35) != '-' || value.charAt(52) != '-') {
+            return null;
+        }
+        // 未来版本可能在末尾追加字段，00 版本必须严格等长
+        if (value.length() > TRACEPARENT_LENGTH && (value.startsWith(VERSION) || value.charAt(TRACEPARENT_LENGTH) != '-')) {
+            return null;
+        }
+        if (!isHex(value, 0, 2) || !isHex(value, 3, 35) || !isHex(value, 36, 52) || !isHex(value, 53, 55)) {
+            return null;
+        }
+        // ff 为非法版本
+        if (parseHex(value, 0, 2) == 0xFF) {
+            return null;
+        }
+        long high = parseHex(value, 3, 19);
+        long low = parseHex(value, 19, 35);
+        long span = parseHex(value, 36, 52);
+        long flags = parseHex(value, 53, 55);
+        // 全 0 的 TraceID 和 SpanID 无效
+        if (high == 0L && low == 0L || span == 0L) {
+            return null;
+        }
+        return new TraceContext(high, low, null, span, 0L, (byte) flags, null, null);
+    }
+
+    /**
+     * 根据上游传入的 TraceID 恢复追踪上下文
+     * <p>
+     * 32 位 16 进制的 TraceID 按数值保存，其他格式（如旧版本生成的随机字符串）原样保留
+     *
+     * @param traceId 上游 TraceID
+     * @return 追踪上下文，TraceID 为空时返回 null
+     */
+    public static TraceContext ofTraceId(String traceId) {
+        if (null == traceId || traceId.trim().isEmpty()) {
+            return null;
+        }
+        String value = traceId.trim();
+        if (value.length() == TRACE_ID_LENGTH && isHex(value, 0, TRACE_ID_LENGTH)) {
+            long high = parseHex(value, 0, 16);
+            long low = parseHex(value, 16, 32);
+            if (high != 0L || low != 0L) {
+                return new TraceContext(high, low, null, 0L, 0L, SAMPLED, null, null);
+            }
+        }
+        return new TraceContext(0L, 0L, value, 0L, 0L, SAMPLED, null, null);
+    }
+
+    /**
+     * 在当前追踪中开始新的 Span，当前 Span 作为父级
+     *
+     * @param upstreamChain 上游的 SpanChain，可为 null
+     * @param service       当前服务名，为空时使用 SpanID
+     * @return 新的追踪上下文
+     */
+    public TraceContext child(String upstreamChain, String service) {
+        return new TraceContext(traceIdHigh, traceIdLow, externalTraceId, nonZero(ThreadLocalRandom.current()), spanId, flags, upstreamChain,
+            null == service || service.isEmpty() ? null : service);
+    }
+
+    /**
+     * TraceID，16 进制或上游传入的原值
+     *
+     * @return TraceID
+     */
+    public String traceId() {
+        if (null != externalTraceId) {
+            return externalTraceId;
+        }
+        String hex = traceIdHex;
+        if (null == hex) {
+            char[] chars = new char[TRACE_ID_LENGTH];
+            encode(traceIdHigh, chars, 0);
+            encode(traceIdLow, chars, 16);
+            traceIdHex = hex = new String(chars);
+        }
+        return hex;
+    }
+
+    /**
+     * SpanID，16 进制
+     *
+     * @return SpanID
+     */
+    public String spanId() {
+        String hex = spanIdHex;
+        if (null == hex) {
+            char[] chars = new char[SPAN_ID_LENGTH];
+            encode(spanId, chars, 0);
+            spanIdHex = hex = new String(chars);
+        }
+        return hex;
+    }
+
+    /**
+     * 父级 SpanID，16 进制
+     *
+     * @return 父级 SpanID，没有父级时返回 null
+     */
+    public String parentSpanId() {
+        if (parentSpanId == 0L) {
+            return null;
+        }
+        char[] chars = new char[SPAN_ID_LENGTH];
+        encode(parentSpanId, chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * SpanChain，上游 SpanChain 之后追加当前服务名
+     *
+     * @return SpanChain
+     */
+    public String spanChain() {
+        String chain = spanChain;
+        if (null == chain) {
+            String self = null != service ? service : spanId();
+            spanChain = chain = null == upstreamChain || upstreamChain.isEmpty() ? self : upstreamChain + "." + self;
+        }
+        return chain;
+    }
+
+    /**
+     * 是否采样
+     *
+     * @return 是否采样
+     */
+    public boolean sampled() {
+        return (flags & SAMPLED) != 0;
+    }
+
+    /**
+     * 128 位 TraceID 的高 64 位
+     *
+     * @return 高 64 位
+     */
+    public long traceIdHigh() {
+        return traceIdHigh;
+    }
+
+    /**
+     * 128 位 TraceID 的低 64 位
+     *
+     * @return 低 64 位
+     */
+    public long traceIdLow() {
+        return traceIdLow;
+    }
+
+    /**
+     * 64 位 SpanID
+     *
+     * @return SpanID
+     */
+    public long spanIdValue() {
+        return spanId;
+    }
+
+    /**
+     * 输出 W3C traceparent
+     *
+     * @return traceparent，TraceID 不是 16 进制或还没有 SpanID 时返回 null
+     */
+    public String traceparent() {
+        if (null != externalTraceId || spanId == 0L) {
+            return null;
+        }
+        String value = traceparent;
+        if (null == value) {
+            char[] chars = new char[TRACEPARENT_LENGTH];
+            chars[0] = '0';
+            chars[1] = '0';
+            chars[2] = '-';
+            encode(traceIdHigh, chars, 3);
+            encode(traceIdLow, chars, 19);
+            chars[35] = '-';
+            encode(spanId, chars, 36);
+            chars[52] = '-';
+            chars[53] = HEX[(flags >> 4) & 0xF];
+            chars[54] = HEX[flags & 0xF];
+            traceparent = value = new String(chars);
+        }
+        return value;
+    }
+
+    /**
+     * 自定义属性
+     *
+     * @return 只读的自定义属性
+     */
+    public Map<String, String> attributes() {
+        Map<String, String> map = attributes;
+        return null == map ? Collections.emptyMap() : Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * 获取自定义属性
+     *
+     * @param key 键
+     * @return 值
+     */
+    public String attribute(String key) {
+        Map<String, String> map = attributes;
+        return null == map ? null : map.get(key);
+    }
+
+    /**
+     * 设置自定义属性，值为 null 时移除
+     *
+     * @param key   键
+     * @param value 值
+     */
+    public void attribute(String key, String value) {
+        if (null == value) {
+            Map<String, String> map = attributes;
+            if (null != map) {
+                map.remove(key);
+            }
+            return;
+        }
+        Map<String, String> map = attributes;
+        if (null == map) {
+            synchronized (this) {
+                map = attributes;
+                if (null == map) {
+                    attributes = map = new ConcurrentHashMap<>(4);
+                }
+            }
+        }
+        map.put(key, value);
+    }
+
+    @Override
+    public String toString() {
+        String value = traceparent();
+        return null != value ? value : traceId() + "-" + spanId();
+    }
+
+    private static long nonZero(ThreadLocalRandom random) {
+        long value;
+        do {
+            value = random.nextLong();
+        } while (value == 0L);
+        return value;
+    }
+
+    private static void encode(long value, char[] chars, int offset) {
+        for (int i = 15; i >= 0; i--) {
+            chars[offset + i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+
+    private static long parseHex(String value, int start, int end) {
+        long result = 0L;
+        for (int i = start; i < end; i++) {
+            result = (result << 4) | digit(value.charAt(i));
+        }
+        return result;
+    }
+
+    private static boolean isHex(String value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (digit(value.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        // W3C 要求小写，兼容大写
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+}
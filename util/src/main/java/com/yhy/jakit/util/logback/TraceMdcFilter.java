@@ -0,0 +1,58 @@
+package com.yhy.jakit.util.logback;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import com.yhy.jakit.util.internal.Trace;
+import org.slf4j.ILoggerFactory;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+
+/**
+ * 输出日志前将追踪上下文同步到 MDC
+ * <p>
+ * 只在日志级别生效时同步，且上下文未变化时不做任何处理，不输出日志的请求不再写 MDC
+ * <p>
+ * 可在 logback 配置中添加 &lt;turboFilter class="com.yhy.jakit.util.logback.TraceMdcFilter"/&gt;，或调用 {@link #install()}
+ * <p>
+ * Created on 2026-10-17 21:30
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class TraceMdcFilter extends TurboFilter {
+
+    /**
+     * 注册到当前 logback 上下文，已注册时不重复注册
+     *
+     * @return 是否已注册，非 logback 实现时返回 false
+     */
+    public static boolean install() {
+        ILoggerFactory factory = LoggerFactory.getILoggerFactory();
+        if (!(factory instanceof LoggerContext)) {
+            return false;
+        }
+        LoggerContext context = (LoggerContext) factory;
+        synchronized (TraceMdcFilter.class) {
+            if (context.getTurboFilterList().stream().noneMatch(filter -> filter instanceof TraceMdcFilter)) {
+                TraceMdcFilter filter = new TraceMdcFilter();
+                filter.setContext(context);
+                filter.start();
+                context.addTurboFilter(filter);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // isXxxEnabled() 调用时 format 为 null，无需同步
+        if (null != format && null != level && level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            Trace.syncMdc();
+        }
+        return FilterReply.NEUTRAL;
+    }
+}
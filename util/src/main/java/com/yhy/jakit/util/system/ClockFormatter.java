@@ -0,0 +1,81 @@
+package com.yhy.jakit.util.system;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 时间格式化器
+ * <p>
+ * 基于线程安全的 {@link DateTimeFormatter}，按格式缓存实例，并记住最近一次格式化的毫秒值和结果，同一毫秒内重复格式化直接返回
+ * <p>
+ * 配合 {@link SystemClock} 使用，高并发场景下格式化当前时间几乎没有开销
+ * <p>
+ * Created on 2026-10-17 19:05
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public final class ClockFormatter {
+    private static final Map<String, ClockFormatter> FORMATTERS = new ConcurrentHashMap<>();
+
+    private final DateTimeFormatter formatter;
+
+    // 最近一次格式化结果，毫秒值与结果放在同一个对象中，保证读取时一致
+    private volatile Formatted last = new Formatted(Long.MIN_VALUE, null);
+
+    private ClockFormatter(String pattern) {
+        this.formatter = DateTimeFormatter.ofPattern(pattern).withZone(ZoneId.systemDefault());
+    }
+
+    /**
+     * 获取指定格式的格式化器
+     *
+     * @param pattern 时间格式
+     * @return 格式化器
+     */
+    public static ClockFormatter of(String pattern) {
+        ClockFormatter formatter = FORMATTERS.get(pattern);
+        return null != formatter ? formatter : FORMATTERS.computeIfAbsent(pattern, ClockFormatter::new);
+    }
+
+    /**
+     * 格式化当前时间
+     *
+     * @return 格式化结果
+     */
+    public String now() {
+        return format(SystemClock.now());
+    }
+
+    /**
+     * 格式化时间戳
+     *
+     * @param millis 时间戳 ms
+     * @return 格式化结果
+     */
+    public String format(long millis) {
+        Formatted formatted = last;
+        if (formatted.millis != millis) {
+            formatted = new Formatted(millis, formatter.format(Instant.ofEpochMilli(millis)));
+            last = formatted;
+        }
+        return formatted.text;
+    }
+
+    /**
+     * 格式化结果
+     */
+    private static class Formatted {
+        private final long millis;
+        private final String text;
+
+        private Formatted(long millis, String text) {
+            this.millis = millis;
+            this.text = text;
+        }
+    }
+}
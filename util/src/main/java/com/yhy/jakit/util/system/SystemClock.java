@@ -1,6 +1,5 @@
 package com.yhy.jakit.util.system;
 
-import java.text.SimpleDateFormat;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -99,7 +98,7 @@ public class SystemClock {
      * @return 当前时间格式化
      */
     public static String now(String pattern) {
-        return new SimpleDateFormat(pattern).format(nowDate());
+        return ClockFormatter.of(pattern).now();
     }
 
     /**
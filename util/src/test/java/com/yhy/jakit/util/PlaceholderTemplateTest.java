@@ -0,0 +1,105 @@
+package com.yhy.jakit.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link PlaceholderTemplate} 与 {@link PlaceholderUtils} 的结果应保持一致
+ * <p>
+ * Created on 2026-10-17 23:10
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class PlaceholderTemplateTest {
+    private static final String[] NAMES = {"id", "user"};
+
+    @Test
+    public void testNestedField() {
+        Object[] values = {7, new User("tom", "secret", new Address("shanghai"))};
+        assertConsistent("order:${user.address.city}:${id}", NAMES, values, "order:shanghai:7");
+        assertConsistent("${id}-${id}", NAMES, values, "7-7");
+        assertConsistent("plain", NAMES, values, "plain");
+    }
+
+    @Test
+    public void testGetterOverField() {
+        Object[] values = {7, new User("tom", "secret", null)};
+        // getter 返回的值优先于字段本身
+        assertConsistent("${user.name}", NAMES, values, "TOM");
+        // 没有 getter 的字段不读取，保留当前值
+        assertConsistent("${user.secret}", NAMES, values, "User(tom)");
+    }
+
+    @Test
+    public void testMissingParameter() {
+        Object[] values = {7, new User("tom", "secret", null)};
+        assertConsistent("${nope}-${id}", NAMES, values, "${nope}-7");
+        // 参数值少于参数名
+        assertConsistent("${id}-${user.name}", NAMES, new Object[]{7}, "7-${user.name}");
+        assertConsistent("${id}", null, values, "${id}");
+    }
+
+    @Test
+    public void testNullIntermediate() {
+        assertConsistent("city:${user.address.city}", NAMES, new Object[]{7, new User("tom", "secret", null)}, "city:");
+        assertConsistent("user:${user.name}", NAMES, new Object[]{7, null}, "user:");
+    }
+
+    @Test
+    public void testMissingField() {
+        Object[] values = {7, new User("tom", "secret", new Address("shanghai"))};
+        assertConsistent("${user.nope}", NAMES, values, "User(tom)");
+        assertConsistent("${user.nope.city}", NAMES, values, "User(tom)");
+        assertConsistent("${user.address.nope}", NAMES, values, "Address(shanghai)");
+    }
+
+    private void assertConsistent(String template, String[] names, Object[] values, String expected) {
+        assertEquals(expected, PlaceholderUtils.resolve(template, names, values));
+        assertEquals(expected, PlaceholderTemplate.compile(template, names).resolve(values));
+    }
+
+    public static class User {
+        private final String name;
+        private final String secret;
+        private final Address address;
+
+        public User(String name, String secret, Address address) {
+            this.name = name;
+            this.secret = secret;
+            this.address = address;
+        }
+
+        public String getName() {
+            return name.toUpperCase();
+        }
+
+        public Address getAddress() {
+            return address;
+        }
+
+        @Override
+        public String toString() {
+            return "User(" + name + ")";
+        }
+    }
+
+    public static class Address {
+        private final String city;
+
+        public Address(String city) {
+            this.city = city;
+        }
+
+        public String getCity() {
+            return city;
+        }
+
+        @Override
+        public String toString() {
+            return "Address(" + city + ")";
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.yhy.jakit.util.internal;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Created on 2026-10-17 23:20
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class TraceContextTest {
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String SPAN_ID = "00f067aa0ba902b7";
+    private static final String TRACEPARENT = "00-" + TRACE_ID + "-" + SPAN_ID + "-01";
+
+    @Test
+    public void testParseRoundTrip() {
+        TraceContext context = TraceContext.parse(TRACEPARENT);
+        assertNotNull(context);
+        assertEquals(TRACE_ID, context.traceId());
+        assertEquals(SPAN_ID, context.spanId());
+        assertTrue(context.sampled());
+        assertEquals(TRACEPARENT, context.traceparent());
+
+        TraceContext unsampled = TraceContext.parse("00-" + TRACE_ID + "-" + SPAN_ID + "-00");
+        assertNotNull(unsampled);
+        assertFalse(unsampled.sampled());
+        assertEquals("00-" + TRACE_ID + "-" + SPAN_ID + "-00", unsampled.traceparent());
+    }
+
+    @Test
+    public void testGenerateRoundTrip() {
+        TraceContext context = TraceContext.generate();
+        TraceContext parsed = TraceContext.parse(context.traceparent());
+        assertNotNull(parsed);
+        assertEquals(context.traceId(), parsed.traceId());
+        assertEquals(context.spanId(), parsed.spanId());
+        assertEquals(context.traceparent(), parsed.traceparent());
+    }
+
+    @Test
+    public void testParseLenient() {
+        // 兼容大写，输出时统一为小写
+        TraceContext upper = TraceContext.parse(TRACEPARENT.toUpperCase());
+        assertNotNull(upper);
+        assertEquals(TRACEPARENT, upper.traceparent());
+        // 兼容首尾空白
+        assertNotNull(TraceContext.parse(" " + TRACEPARENT + " "));
+        // 未来版本可以在末尾追加字段
+        TraceContext future = TraceContext.parse("cc-" + TRACE_ID + "-" + SPAN_ID + "-01-what-the-future-will-be-like");
+        assertNotNull(future);
+        assertEquals(TRACE_ID, future.traceId());
+        assertEquals(TRACEPARENT, future.traceparent());
+        assertNotNull(TraceContext.parse("cc-" + TRACE_ID + "-" + SPAN_ID + "-01"));
+    }
+
+    @Test
+    public void testParseRejected() {
+        assertNull(TraceContext.parse(null));
+        assertNull(TraceContext.parse(""));
+        assertNull(TraceContext.parse(TRACEPARENT.substring(1)));
+        // ff 为非法版本
+        assertNull(TraceContext.parse("ff-" + TRACE_ID + "-" + SPAN_ID + "-01"));
+        // 00 版本必须严格等长
+        assertNull(TraceContext.parse(TRACEPARENT + "-extra"));
+        assertNull(TraceContext.parse(TRACEPARENT + "0"));
+        // 未来版本追加的字段必须以 - 分隔
+        assertNull(TraceContext.parse("cc-" + TRACE_ID + "-" + SPAN_ID + "-01x"));
+        // 全 0 的 TraceID 和 SpanID 无效
+        assertNull(TraceContext.parse("00-00000000000000000000000000000000-" + SPAN_ID + "-01"));
+        assertNull(TraceContext.parse("00-" + TRACE_ID + "-0000000000000000-01"));
+        // 非 16 进制和分隔符错误
+        assertNull(TraceContext.parse("00-" + TRACE_ID.replace('a', 'g') + "-" + SPAN_ID + "-01"));
+        assertNull(TraceContext.parse("00-" + TRACE_ID + "-" + SPAN_ID + "-0x"));
+        assertNull(TraceContext.parse("00_" + TRACE_ID + "-" + SPAN_ID + "-01"));
+        assertNull(TraceContext.parse("00-" + TRACE_ID + "_" + SPAN_ID + "-01"));
+    }
+
+    @Test
+    public void testOfTraceId() {
+        TraceContext hex = TraceContext.ofTraceId(TRACE_ID);
+        assertNotNull(hex);
+        assertEquals(TRACE_ID, hex.traceId());
+        // 还没有 SpanID 时不输出 traceparent
+        assertNull(hex.traceparent());
+
+        // 旧版本的非 16 进制 TraceID 原样保留
+        TraceContext legacy = TraceContext.ofTraceId("legacy-trace-id");
+        assertNotNull(legacy);
+        assertEquals("legacy-trace-id", legacy.traceId());
+        assertNull(legacy.traceparent());
+        assertNull(legacy.child(null, null).traceparent());
+        assertEquals("legacy-trace-id", legacy.child(null, null).traceId());
+
+        // 全 0 按非 16 进制原样保留
+        assertEquals("00000000000000000000000000000000", TraceContext.ofTraceId("00000000000000000000000000000000").traceId());
+
+        assertNull(TraceContext.ofTraceId(null));
+        assertNull(TraceContext.ofTraceId(" "));
+    }
+
+    @Test
+    public void testChild() {
+        TraceContext parent = TraceContext.parse(TRACEPARENT);
+        assertNotNull(parent);
+        TraceContext child = parent.child("upstream", "order");
+        assertEquals(parent.traceId(), child.traceId());
+        assertNotEquals(parent.spanId(), child.spanId());
+        assertEquals(parent.spanId(), child.parentSpanId());
+        assertEquals(parent.sampled(), child.sampled());
+        assertEquals("upstream.order", child.spanChain());
+        assertEquals("00-" + TRACE_ID + "-" + child.spanId() + "-01", child.traceparent());
+
+        TraceContext fromTraceId = TraceContext.ofTraceId(TRACE_ID).child(null, null);
+        assertEquals(TRACE_ID, fromTraceId.traceId());
+        assertNull(fromTraceId.parentSpanId());
+        assertEquals(fromTraceId.spanId(), fromTraceId.spanChain());
+        assertNotNull(TraceContext.parse(fromTraceId.traceparent()));
+    }
+}
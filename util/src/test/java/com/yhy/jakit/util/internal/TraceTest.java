@@ -0,0 +1,38 @@
+package com.yhy.jakit.util.internal;
+
+import com.yhy.jakit.util.cst.Define;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Created on 2026-10-17 23:30
+ *
+ * @author 颜洪毅
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+public class TraceTest {
+
+    @Test
+    public void testSyncMdcAfterClear() {
+        try {
+            TraceContext context = TraceContext.generate();
+            Trace.set(context);
+            Trace.syncMdc();
+            assertEquals(context.traceId(), MDC.get(Define.TRACE_ID));
+
+            // 其他代码在请求中途清空 MDC 后，再次同步时需要恢复
+            MDC.clear();
+            Trace.syncMdc();
+            assertEquals(context.traceId(), MDC.get(Define.TRACE_ID));
+            assertEquals(context.spanId(), MDC.get(Define.SPAN_ID));
+        } finally {
+            Trace.clear();
+        }
+        Trace.syncMdc();
+        assertNull(MDC.get(Define.TRACE_ID));
+    }
+}